@@ -3,68 +3,115 @@ import data.Schedule;
 import data.TaskGraph;
 import gui.Visualiser;
 import io.IOParser;
+import io.TaskGraphFile;
 import javafx.stage.Stage;
 import org.apache.commons.cli.*;
-import org.graphstream.graph.Graph;
 
+import solution.ComponentScheduler;
+import solution.LocalSearchImprover;
 import solution.Solution;
+import solution.SolutionAStar;
 import solution.SolutionParallel;
 import solution.SolutionSequential;
 import solution.SolutionThread;
+import solution.helpers.BoundedSeenScheduleSet;
+import solution.helpers.ForkScheduler;
+import solution.helpers.GraphClassifier;
+import solution.helpers.GraphClassifier.GraphClass;
+import solution.helpers.GraphReducer;
 import solution.helpers.Greedy;
+import solution.helpers.InsertionScheduler;
+import solution.helpers.PreProcessor;
+import solution.helpers.SeenScheduleSet;
 import solution.helpers.SequentialScheduler;
 
+import java.io.IOException;
+
 /**
  * The main class of the project. Runs different options of solutions for the task
  * scheduling problem depending on inputs.
  */
 public class Driver {
+    private static final long DEFAULT_GREEDY_TIME = 100; // milliseconds spent on randomized greedy schedules
+
     static int numProcessors;
     static int numThreads = 1;
     static String fileName;
     static TaskGraph taskGraph;
+    static TaskGraph searchGraph; // taskGraph without the edges that never bind, see GraphReducer
+    static long greedyTime = DEFAULT_GREEDY_TIME;
+    static boolean isLocalSearch = false; // improve the best schedule with local search while the search runs
 
     /**
      * Main method of the project from which everything is instantiated and run.
      * Uses the IOParser class to create a TaskGraph object. A solution object uses
-     * the TaskGraph object to create a schedule represented by an array of Tasks.
+     * the TaskGraph object, without the edges that never bind, to create a schedule represented by an array of Tasks.
      * We use the IOParser to write the schedule to the output dot file.
      * @param args Array of string of inputs, in order: input file name, processor count,
      *             [OPTIONAL]: (-p) number of cores, (-v) visualisation of search,
-     *             (-o) name of output file
+     *             (-o) name of output file, (-a) search algorithm, (-l) lossy duplicate detection,
+     *             (--seen-capacity) initial capacity of the duplicate detection table,
+     *             (--off-heap) keep the lossy duplicate detection table off the heap,
+     *             (--seen-mem) memory budget of the duplicate detection table,
+     *             (--greedy-time) milliseconds spent on randomized greedy schedules,
+     *             (--local-search) improve the best schedule with local search during the search,
+     *             (--rollout-depth) complete partial schedules with fewer tasks greedily, sequential dfs only,
+     *             (--rollout-every) only complete one in every this many of them
+     *             Or, to convert a dot file into a task graph file that is faster to read:
+     *             convert, input file name, output file name.
      */
     public static void main(String[] args){
+        if (args.length > 0 && args[0].equals("convert")) {
+            convert(args);
+            return;
+        }
+
         // Get the input options from the command line
         CommandLine cmd = getCommandLineOptions(args);
         fileName = args[0];
 
         numProcessors = getNumProcessors(args);
+        greedyTime = getGreedyTime(cmd);
+        isLocalSearch = cmd.hasOption("local-search");
         final String outputFilePath = getOutputFilePath(cmd);
 
         // Read input file
-        Graph dotGraph = IOParser.read(fileName);
-        taskGraph = new TaskGraph(dotGraph);
+        taskGraph = IOParser.readTaskGraph(fileName);
+        searchGraph = GraphReducer.reduce(taskGraph);
 
-        // Choose to run either the sequential or the parallel version.
-        Solution solution;
-        if(cmd.hasOption("p")){
-            solution = new SolutionParallel(taskGraph, numProcessors);
-            try {
-                numThreads = Integer.parseInt(cmd.getOptionValue('p'));
-                ((SolutionParallel) solution).setNumCores(numThreads);
-            } catch(NumberFormatException e) {
-                System.err.println("Error: number of threads invalid");
-                System.exit(1);
-            }
-        } else {
-            solution = new SolutionSequential(taskGraph, numProcessors);
-        }
+        // Choose to run either the sequential, the parallel or the A* version.
+        Solution solution = createSolution(cmd);
+        setDuplicateDetectionOptions(cmd, solution);
 
         // Choose whether to run visualisation.
         if(cmd.hasOption('v')) {
-            runVisual(solution, outputFilePath, dotGraph);
+            runVisual(solution, outputFilePath);
         } else {
-            runNonVisual(solution, outputFilePath, dotGraph);
+            runNonVisual(solution, outputFilePath);
+        }
+    }
+
+    /**
+     * Converts a dot file into a task graph file (see TaskGraphFile), which also holds the task levels and equivalence
+     * classes of the tasks, so that they do not need to be calculated on every run. The equivalence classes are those
+     * of the graph the search runs on, see GraphReducer, which has exactly the same valid schedules, so they are kept
+     * for the reduced graph when it is made from the file.
+     * @param args The command line arguments: convert, input file name, output file name.
+     */
+    private static void convert(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Please ensure that the converter is run like: java -jar scheduler.jar convert INPUT.dot OUTPUT");
+            System.exit(1);
+        }
+
+        TaskGraph taskGraph = IOParser.readTaskGraph(args[1]);
+        TaskGraph reducedGraph = GraphReducer.reduce(taskGraph);
+        taskGraph.setEquivalenceClasses(PreProcessor.getEquivalenceClasses(reducedGraph));
+        try {
+            TaskGraphFile.write(args[2], taskGraph);
+        } catch (IOException e) {
+            System.err.println("Error writing file.");
+            System.exit(1);
         }
     }
 
@@ -73,6 +120,15 @@ public class Driver {
      * -p: number of cores/threads.
      * -v: if visualisation is required.
      * -o: name of output file.
+     * -a: search algorithm, either dfs or astar.
+     * -l: if duplicate detection should only compare hashes of partial schedules.
+     * --seen-capacity: number of partial schedules the duplicate detection table holds before it grows.
+     * --off-heap: if the lossy duplicate detection table should be kept outside of the heap.
+     * --seen-mem: maximum memory used by the duplicate detection table, e.g. 512m.
+     * --greedy-time: milliseconds spent on greedy schedules with randomly broken ties before the search.
+     * --local-search: if the best schedule should be improved by local search on another thread during the search.
+     * --rollout-depth: partial schedules with fewer tasks scheduled are completed greedily by the sequential search.
+     * --rollout-every: only one in every this many partial schedules that could be completed greedily is.
      * @param args The command line arguments.
      * @return A CommandLine object containing the results of the command line
      * arguments.
@@ -91,6 +147,42 @@ public class Driver {
         o.setRequired(false);
         options.addOption(o);
 
+        Option a = new Option("a", true, "search algorithm");
+        a.setRequired(false);
+        options.addOption(a);
+
+        Option l = new Option("l", "lossy", false, "lossy duplicate detection");
+        l.setRequired(false);
+        options.addOption(l);
+
+        Option seenCapacity = new Option(null, "seen-capacity", true, "duplicate detection table capacity");
+        seenCapacity.setRequired(false);
+        options.addOption(seenCapacity);
+
+        Option offHeap = new Option(null, "off-heap", false, "duplicate detection table off the heap");
+        offHeap.setRequired(false);
+        options.addOption(offHeap);
+
+        Option seenMemory = new Option(null, "seen-mem", true, "duplicate detection memory budget");
+        seenMemory.setRequired(false);
+        options.addOption(seenMemory);
+
+        Option greedy = new Option(null, "greedy-time", true, "randomized greedy schedule time in ms");
+        greedy.setRequired(false);
+        options.addOption(greedy);
+
+        Option localSearch = new Option(null, "local-search", false, "local search during the search");
+        localSearch.setRequired(false);
+        options.addOption(localSearch);
+
+        Option rolloutDepth = new Option(null, "rollout-depth", true, "greedy completion depth");
+        rolloutDepth.setRequired(false);
+        options.addOption(rolloutDepth);
+
+        Option rolloutEvery = new Option(null, "rollout-every", true, "greedy completion frequency");
+        rolloutEvery.setRequired(false);
+        options.addOption(rolloutEvery);
+
         CommandLineParser parser = new DefaultParser();
         CommandLine cmd = null;
         try {
@@ -104,6 +196,118 @@ public class Driver {
         return cmd;
     }
 
+    /**
+     * Creates the solution chosen by the command line options. The depth-first branch and bound search is used
+     * unless the A* search is requested with -a astar. The A* search always runs on one thread. Only the sequential
+     * depth-first search completes shallow partial schedules greedily, with --rollout-depth and --rollout-every.
+     * @param cmd The CommandLine object that contains input arguments.
+     * @return The solution to run.
+     */
+    private static Solution createSolution(CommandLine cmd) {
+        String algorithm = cmd.getOptionValue('a', "dfs");
+        // Only the sequential search completes partial schedules greedily
+        if ((cmd.hasOption("rollout-depth") || cmd.hasOption("rollout-every"))
+                && (algorithm.equals("astar") || cmd.hasOption("p"))) {
+            System.err.println("Error: rollout options can only be used with the sequential dfs search");
+            System.exit(1);
+        }
+        if (algorithm.equals("astar")) {
+            return new SolutionAStar(searchGraph, numProcessors);
+        } else if (!algorithm.equals("dfs")) {
+            System.err.println("Error: algorithm must be either dfs or astar");
+            System.exit(1);
+        }
+
+        if(cmd.hasOption("p")){
+            SolutionParallel solution = new SolutionParallel(searchGraph, numProcessors);
+            try {
+                numThreads = Integer.parseInt(cmd.getOptionValue('p'));
+                solution.setNumCores(numThreads);
+            } catch(NumberFormatException e) {
+                System.err.println("Error: number of threads invalid");
+                System.exit(1);
+            }
+            return solution;
+        }
+
+        SolutionSequential solution = new SolutionSequential(searchGraph, numProcessors);
+        try {
+            int rolloutDepth = Integer.parseInt(cmd.getOptionValue("rollout-depth", "0"));
+            int rolloutEvery = Integer.parseInt(cmd.getOptionValue("rollout-every", "1"));
+            if (rolloutDepth < 0 || rolloutEvery < 1) {
+                throw new NumberFormatException();
+            }
+            solution.setRolloutDepth(rolloutDepth);
+            solution.setRolloutEvery(rolloutEvery);
+        } catch(NumberFormatException e) {
+            System.err.println("Error: rollout depth or frequency invalid");
+            System.exit(1);
+        }
+        return solution;
+    }
+
+    /**
+     * Applies the duplicate detection options to the solution.
+     * @param cmd The CommandLine object that contains input arguments.
+     * @param solution The solution to configure.
+     */
+    private static void setDuplicateDetectionOptions(CommandLine cmd, Solution solution) {
+        if (cmd.hasOption('l')) {
+            solution.setLossy();
+        }
+        if (cmd.hasOption("off-heap")) {
+            solution.setOffHeap();
+        }
+        if (cmd.hasOption("seen-capacity")) {
+            try {
+                solution.setSeenSchedulesCapacity(Integer.parseInt(cmd.getOptionValue("seen-capacity")));
+            } catch(NumberFormatException e) {
+                System.err.println("Error: duplicate detection capacity invalid");
+                System.exit(1);
+            }
+        }
+        if (cmd.hasOption("seen-mem")) {
+            solution.setSeenSchedulesMemory(parseMemorySize(cmd.getOptionValue("seen-mem")));
+        }
+    }
+
+    /**
+     * @param size A number of bytes, optionally followed by k, m or g.
+     * @return The number of bytes.
+     */
+    private static long parseMemorySize(String size) {
+        String number = size.trim().toLowerCase();
+        long unit = 1;
+        if (number.endsWith("k")) {
+            unit = 1L << 10;
+        } else if (number.endsWith("m")) {
+            unit = 1L << 20;
+        } else if (number.endsWith("g")) {
+            unit = 1L << 30;
+        }
+        if (unit != 1) {
+            number = number.substring(0, number.length() - 1);
+        }
+
+        long bytes = -1;
+        try {
+            bytes = Long.parseLong(number) * unit;
+        } catch(NumberFormatException e) {
+            bytes = -1;
+        }
+        if (bytes <= 0) {
+            System.err.println("Error: duplicate detection memory budget invalid");
+            System.exit(1);
+        }
+        if (bytes < BoundedSeenScheduleSet.MIN_MEMORY_BUDGET) {
+            System.err.println("Error: duplicate detection memory budget must be at least "
+                    + BoundedSeenScheduleSet.MIN_MEMORY_BUDGET + " bytes");
+            System.exit(1);
+        }
+
+        return bytes;
+    }
+
     /**
      * @param args The command line arguments.
      * @return The number of processors to use.
@@ -120,13 +324,37 @@ public class Driver {
         return -1;
     }
 
+    /**
+     * @param cmd The CommandLine object that contains input arguments.
+     * @return The milliseconds to spend on randomized greedy schedules.
+     */
+    private static long getGreedyTime(CommandLine cmd) {
+        long time = -1;
+        try {
+            time = Long.parseLong(cmd.getOptionValue("greedy-time", String.valueOf(DEFAULT_GREEDY_TIME)));
+        } catch(NumberFormatException e) {
+            time = -1;
+        }
+        if (time < 0) {
+            System.err.println("Error: greedy time invalid");
+            System.exit(1);
+        }
+
+        return time;
+    }
+
     /**
      * @param cmd The CommandLine object that contains input arguments.
      * @return The output file path to write to.
      */
     private static String getOutputFilePath(CommandLine cmd) {
+        // The default replaces the extension of the input file, .dot or that of a task graph file
+        int extension = fileName.lastIndexOf('.');
+        if (extension <= Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'))) {
+            extension = fileName.length();
+        }
         String outputFilePath = cmd.getOptionValue('o',
-                fileName.substring(0,fileName.length()-4) + "-output.dot");
+                fileName.substring(0, extension) + "-output.dot");
         if (!outputFilePath.endsWith(".dot")) {
             outputFilePath += ".dot";
         }
@@ -138,12 +366,11 @@ public class Driver {
      * Runs the visualisation of the project.
      * @param solution The solution to visualise.
      * @param outputFilePath The path to write the output file to.
-     * @param dotGraph The input graph.
      */
-    private static void runVisual(Solution solution, String outputFilePath, Graph dotGraph) {
+    private static void runVisual(Solution solution, String outputFilePath) {
         PlatformImpl.startup(() -> {
             Visualiser visualiser = new Visualiser();
-            SolutionThread solutionThread = new SolutionThread(solution, taskGraph, numProcessors, outputFilePath, dotGraph);
+            SolutionThread solutionThread = new SolutionThread(solution, taskGraph, numProcessors, outputFilePath);
             try {
                 visualiser.start(new Stage());
             } catch (Exception e) {
@@ -157,9 +384,8 @@ public class Driver {
      * Runs the project without visualisation.
      * @param solution The solution to run.
      * @param outputFilePath The path to write the output file to.
-     * @param dotGraph The input graph.
      */
-    private static void runNonVisual(Solution solution, String outputFilePath, Graph dotGraph) {
+    private static void runNonVisual(Solution solution, String outputFilePath) {
         Schedule result;
 
         // if the number of processors is one, then the optimal solution is just everything run
@@ -169,23 +395,80 @@ public class Driver {
             result = scheduler.getSchedule();
             solution.setInitialSchedule(result);
         } else {
-            // Run greedy algorithm to determine lower bound of optimal solution
+            // Run greedy algorithm to determine lower bound of optimal solution, on every thread and with random
+            // restarts until the time is up or a schedule meets the lower bound. Then try to fill the gaps it leaves.
             Greedy g = new Greedy();
-            result = g.run(taskGraph, numProcessors);
+            g.setNumThreads(numThreads);
+            g.setTimeLimit(greedyTime);
+            g.setLowerBound(solution.getLowerBound());
+            result = g.run(searchGraph, numProcessors);
+            Schedule insertionResult = new InsertionScheduler().run(searchGraph, numProcessors);
+            if (insertionResult.getFinishTime() < result.getFinishTime()) {
+                result = insertionResult;
+            }
+            long startTime = System.currentTimeMillis();
+
+            // Independent tasks, fork and join graphs have a scheduler of their own. If the graph is made of several
+            // small components, schedule each on its own and pack them together.
+            boolean isOptimal = false;
+            GraphClass graphClass = GraphClassifier.classify(searchGraph);
+            if (ForkScheduler.canSchedule(searchGraph, graphClass)) {
+                ForkScheduler forkScheduler = new ForkScheduler(searchGraph, numProcessors, graphClass);
+                result = forkScheduler.run(result);
+                isOptimal = forkScheduler.isOptimal();
+            } else {
+                ComponentScheduler componentScheduler = new ComponentScheduler(searchGraph, numProcessors);
+                if (componentScheduler.canDecompose()) {
+                    Schedule packedResult = componentScheduler.run(numThreads);
+                    if (packedResult.getFinishTime() < result.getFinishTime()) {
+                        result = packedResult;
+                    }
+                    isOptimal = componentScheduler.isOptimal();
+                }
+            }
             solution.setInitialSchedule(result);
 
-            // Run algorithm to find optimal schedule
-            long startTime = System.currentTimeMillis();
-            Schedule optimalResult = solution.run();
+            // Run algorithm to find optimal schedule, unless the schedule so far is known to be optimal, or finishes
+            // at the lower bound so nothing can beat it
+            if (!isOptimal && result.getFinishTime() > solution.getLowerBound()) {
+                LocalSearchImprover improver = null;
+                Thread improverThread = null;
+                if (isLocalSearch) {
+                    improver = new LocalSearchImprover(searchGraph, numProcessors, solution.getIncumbent(),
+                            solution.getLowerBound());
+                    improverThread = new Thread(improver);
+                    improverThread.setDaemon(true);
+                    improverThread.start();
+                }
+
+                Schedule optimalResult = solution.run();
 
-            if (optimalResult.getFinishTime() < result.getFinishTime()) {
-                result = optimalResult;
+                if (improver != null) {
+                    improver.stop();
+                    try {
+                        improverThread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    System.out.println("Local search: " + improver.getImprovements() + " improvements");
+                }
+
+                if (optimalResult.getFinishTime() < result.getFinishTime()) {
+                    result = optimalResult;
+                }
             }
 
             System.out.println("Program ran in: " + (System.currentTimeMillis() - startTime) + "ms");
             System.out.println("Best schedule has finishing time of " + result.getFinishTime());
+
+            System.out.print(solution.getStatistics().getReport());
+            SeenScheduleSet seenSchedules = solution.getSeenSchedules();
+            if (seenSchedules != null) {
+                System.out.println("Duplicate detection: " + seenSchedules.getHits() + " hits, "
+                        + seenSchedules.getMisses() + " misses, " + seenSchedules.getEvictions() + " evictions");
+            }
         }
 
-        IOParser.write(outputFilePath, dotGraph, result);
+        IOParser.write(outputFilePath, taskGraph, result);
     }
 }
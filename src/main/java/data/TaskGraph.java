@@ -1,74 +1,168 @@
 package data;
 
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The TaskGraph class encapsulates tasks and their dependencies.
+ *
+ * The edges are stored in compressed sparse row form, once grouped by their target task (the parents of each task)
+ * and once grouped by their source task (the children of each task). The parents of task t are
+ * parents[parentOffsets[t]] to parents[parentOffsets[t + 1] - 1], and parentCommCosts holds the communication cost
+ * of each of those edges at the same index. The children are stored the same way. Within each task, the parents and
+ * children are sorted by task id.
  */
 public class TaskGraph {
     private final int numberOfTasks;
 
-    private List<Integer>[] parentsList;
-    private List<Integer>[] childrenList;
-    private int[] durations;
-    private int[][] commCosts;
+    private final String[] taskNames; // taskNames[i] => id of task i in the input dot file
+    private final int[] durations;
+    private final int[] parentOffsets; // parents of task t are at parentOffsets[t] (inclusive) to parentOffsets[t + 1]
+    private final int[] parents;
+    private final int[] parentCommCosts; // parentCommCosts[e] => communication cost of the edge to parents[e]
+    private final int[] childOffsets; // children of task t are at childOffsets[t] (inclusive) to childOffsets[t + 1]
+    private final int[] children;
+    private final int[] childCommCosts; // childCommCosts[e] => communication cost of the edge to children[e]
+
+    // Results of PreProcessor, kept with the graph so they are only calculated once, null until they are calculated
+    private TaskLevels taskLevels;
+    private int[] equivalenceClasses;
 
     /**
      * Transforms the original dot file data into data structures that we use.
      * @param dotGraph The original dot file data parsed by GraphStream.
      */
-    public TaskGraph(Graph dotGraph){
-        numberOfTasks = dotGraph.getNodeCount();
-        initializeDataStructures(numberOfTasks);
+    public TaskGraph(Graph dotGraph) {
+        this(readTaskNames(dotGraph), readDurations(dotGraph), readEdges(dotGraph));
+    }
 
-        for(int i = 0; i < numberOfTasks; i++){
-            Node node = dotGraph.getNode(i);
-            durations[i] = ((Double)node.getAttribute("Weight")).intValue();
-
-            node.enteringEdges().forEach(e -> {
-                int s = e.getSourceNode().getIndex();
-                int t = e.getTargetNode().getIndex();
-                int commCost = ((Double)e.getAttribute("Weight")).intValue();
-                parentsList[t].add(s);
-                childrenList[s].add(t);
-                commCosts[s][t] = commCost;
-            });
+    /**
+     * Initializes a data.TaskGraph object from a list of edges.
+     * @param taskNames taskNames[i] => id of task i in the input dot file.
+     * @param durations durations[i] => duration of task i.
+     * @param sources sources[e] => source (parent) task of edge e.
+     * @param targets targets[e] => target (child) task of edge e.
+     * @param commCosts commCosts[e] => communication cost of edge e.
+     */
+    public TaskGraph(String[] taskNames, int[] durations, int[] sources, int[] targets, int[] commCosts) {
+        this.numberOfTasks = durations.length;
+        this.taskNames = taskNames;
+        this.durations = durations;
+
+        parentOffsets = new int[numberOfTasks + 1];
+        parents = new int[targets.length];
+        parentCommCosts = new int[targets.length];
+        childOffsets = new int[numberOfTasks + 1];
+        children = new int[sources.length];
+        childCommCosts = new int[sources.length];
+
+        // Sorting the edges by target, then stably by source, groups the children of each task sorted by id. Sorting
+        // those stably by target then groups the parents of each task sorted by id.
+        int[] edges = new int[sources.length];
+        for (int e = 0; e < edges.length; e++) {
+            edges[e] = e;
         }
+        int[] bySource = countingSort(countingSort(edges, targets), sources);
+        int[] byTarget = countingSort(bySource, targets);
+        fill(bySource, sources, targets, commCosts, childOffsets, children, childCommCosts);
+        fill(byTarget, targets, sources, commCosts, parentOffsets, parents, parentCommCosts);
     }
 
     /**
-     * Initializes a data.TaskGraph object from given fields.
-     * Only used for testing purposes.
+     * Initializes a data.TaskGraph object from its compressed sparse row arrays, see the class comment.
      */
-    public TaskGraph(List<Integer>[] parentsList, List<Integer>[] childrenList,
-                     int[] durations, int[][] commCosts){
-        this.numberOfTasks = parentsList.length;
-        this.parentsList = parentsList;
-        this.childrenList = childrenList;
+    public TaskGraph(String[] taskNames, int[] durations, int[] parentOffsets, int[] parents, int[] parentCommCosts,
+                     int[] childOffsets, int[] children, int[] childCommCosts) {
+        this.numberOfTasks = durations.length;
+        this.taskNames = taskNames;
         this.durations = durations;
-        this.commCosts = commCosts;
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.parentCommCosts = parentCommCosts;
+        this.childOffsets = childOffsets;
+        this.children = children;
+        this.childCommCosts = childCommCosts;
     }
 
     /**
-     * Initializes all data structures which store the input graphs information.
-     * @param n Number of nodes in the input graph.
+     * @return taskNames[i] => id of node i.
      */
-    private void initializeDataStructures(int n) {
-        parentsList = new List[n];
-        childrenList = new List[n];
-        durations = new int[n];
-        commCosts = new int[n][n];
+    private static String[] readTaskNames(Graph dotGraph) {
+        String[] taskNames = new String[dotGraph.getNodeCount()];
+        for (int i = 0; i < taskNames.length; i++) {
+            taskNames[i] = dotGraph.getNode(i).getId();
+        }
+        return taskNames;
+    }
 
-        for(int i = 0; i < n; i++) {
-            parentsList[i] = new ArrayList<Integer>();
-            childrenList[i] = new ArrayList<Integer>();
+    /**
+     * @return durations[i] => duration of node i.
+     */
+    private static int[] readDurations(Graph dotGraph) {
+        int[] durations = new int[dotGraph.getNodeCount()];
+        for (int i = 0; i < durations.length; i++) {
+            Node node = dotGraph.getNode(i);
+            durations[i] = ((Double) node.getAttribute("Weight")).intValue();
         }
+        return durations;
     }
 
+    /**
+     * @return the sources, targets and communication costs of the edges, in that order.
+     */
+    private static int[][] readEdges(Graph dotGraph) {
+        int numEdges = dotGraph.getEdgeCount();
+        int[][] edges = new int[3][numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            Edge edge = dotGraph.getEdge(e);
+            edges[0][e] = edge.getSourceNode().getIndex();
+            edges[1][e] = edge.getTargetNode().getIndex();
+            edges[2][e] = ((Double) edge.getAttribute("Weight")).intValue();
+        }
+        return edges;
+    }
+
+    private TaskGraph(String[] taskNames, int[] durations, int[][] edges) {
+        this(taskNames, durations, edges[0], edges[1], edges[2]);
+    }
+
+    /**
+     * Stable counting sort of edge indices by a key.
+     * @param edges the edge indices to sort.
+     * @param keys keys[e] => the task edge e is sorted by.
+     * @return the sorted edge indices.
+     */
+    private int[] countingSort(int[] edges, int[] keys) {
+        int[] starts = new int[numberOfTasks + 1];
+        for (int e : edges) {
+            starts[keys[e] + 1]++;
+        }
+        for (int t = 0; t < numberOfTasks; t++) {
+            starts[t + 1] += starts[t];
+        }
+        int[] sorted = new int[edges.length];
+        for (int e : edges) {
+            sorted[starts[keys[e]]++] = e;
+        }
+        return sorted;
+    }
+
+    /**
+     * Fills in one compressed sparse row table from edges that are grouped by the task that owns them.
+     */
+    private void fill(int[] sortedEdges, int[] owners, int[] neighbours, int[] commCosts,
+                      int[] offsets, int[] rowNeighbours, int[] rowCommCosts) {
+        for (int i = 0; i < sortedEdges.length; i++) {
+            int e = sortedEdges[i];
+            offsets[owners[e] + 1]++;
+            rowNeighbours[i] = neighbours[e];
+            rowCommCosts[i] = commCosts[e];
+        }
+        for (int t = 0; t < numberOfTasks; t++) {
+            offsets[t + 1] += offsets[t];
+        }
+    }
 
     /**
      * @return The number of tasks in the task graph.
@@ -78,17 +172,67 @@ public class TaskGraph {
     }
 
     /**
-     * @return A list of the parents of the input task.
+     * @return The number of dependencies in the task graph.
+     */
+    public int getNumberOfEdges() {
+        return parents.length;
+    }
+
+    /**
+     * @return The number of parents of the input task.
+     */
+    public int getNumParents(int task) {
+        return parentOffsets[task + 1] - parentOffsets[task];
+    }
+
+    /**
+     * @param task the task.
+     * @param i index of the parent, from 0 to getNumParents(task) - 1.
+     * @return The i-th parent of the task.
+     */
+    public int parentAt(int task, int i) {
+        return parents[parentOffsets[task] + i];
+    }
+
+    /**
+     * @param task the task.
+     * @param i index of the parent, from 0 to getNumParents(task) - 1.
+     * @return The communication cost between the i-th parent and the task.
+     */
+    public int parentCommCostAt(int task, int i) {
+        return parentCommCosts[parentOffsets[task] + i];
+    }
+
+    /**
+     * @return The number of children of the input task.
+     */
+    public int getNumChildren(int task) {
+        return childOffsets[task + 1] - childOffsets[task];
+    }
+
+    /**
+     * @param task the task.
+     * @param i index of the child, from 0 to getNumChildren(task) - 1.
+     * @return The i-th child of the task.
      */
-    public List<Integer> getParentsList(int task) {
-        return parentsList[task];
+    public int childAt(int task, int i) {
+        return children[childOffsets[task] + i];
     }
 
     /**
-     * @return A list of the children of the input task.
+     * @param task the task.
+     * @param i index of the child, from 0 to getNumChildren(task) - 1.
+     * @return The communication cost between the task and its i-th child.
      */
-    public List<Integer> getChildrenList(int task) {
-        return childrenList[task];
+    public int childCommCostAt(int task, int i) {
+        return childCommCosts[childOffsets[task] + i];
+    }
+
+    /**
+     * @return The id of the specified input task in the input dot file.
+     */
+    public String getTaskName(int task) {
+        return taskNames[task];
     }
 
     /**
@@ -99,17 +243,47 @@ public class TaskGraph {
     }
 
     /**
+     * Looks up the communication cost of an edge by scanning the parents of the child. Prefer parentCommCostAt or
+     * childCommCostAt when iterating over the edges of a task.
      * @param parent parent task.
      * @param child task which depends on parent.
      * @return The communication cost of scheduling the child on another processor
      * from the parent. If (parent is not a parent of child), returns 0.
      */
     public int getCommCost(int parent, int child) {
-        return commCosts[parent][child];
+        for (int e = parentOffsets[child]; e < parentOffsets[child + 1]; e++) {
+            if (parents[e] == parent) {
+                return parentCommCosts[e];
+            }
+        }
+        return 0;
     }
 
      /**
      * @return The duration of all input tasks.
      */
     public int[] getDurations() { return durations; }
-}
\ No newline at end of file
+
+    /**
+     * @return The levels of every task, see PreProcessor.getTaskLevels, or null if not calculated yet.
+     */
+    public TaskLevels getTaskLevels() {
+        return taskLevels;
+    }
+
+    public void setTaskLevels(TaskLevels taskLevels) {
+        this.taskLevels = taskLevels;
+    }
+
+    /**
+     * @return The equivalence class of every task, see PreProcessor.getEquivalenceClasses, or null if not calculated
+     * yet.
+     */
+    public int[] getEquivalenceClasses() {
+        return equivalenceClasses;
+    }
+
+    public void setEquivalenceClasses(int[] equivalenceClasses) {
+        this.equivalenceClasses = equivalenceClasses;
+    }
+}
@@ -0,0 +1,106 @@
+package data;
+
+/**
+ * The TaskLevels class holds the levels of every task in a task graph, which are calculated once by PreProcessor in a
+ * single pass over a topological order of the tasks. The arrays are shared with the solvers, so they must not be
+ * changed.
+ *
+ * Levels without communication costs are lower bounds, as any dependency may be scheduled on one processor:
+ * - the b-level of a task is the longest path from the start of the task to the end of an exit task;
+ * - the ASAP time of a task is the longest path from an entry task to the start of the task, so no schedule can start
+ *   the task earlier;
+ * - the ALAP time of a task is the latest start that does not make the critical path longer.
+ * The b-levels and t-levels with communication costs are the levels used by list schedulers, with every dependency
+ * scheduled on different processors.
+ */
+public class TaskLevels {
+    private final int[] topologicalOrder;
+    private final int[] bLevels; // bLevels[i] => b-level of task i without communication costs
+    private final int[] bLevelsWithCommCosts; // bLevelsWithCommCosts[i] => b-level of task i with communication costs
+    private final int[] tLevels; // tLevels[i] => t-level of task i with communication costs
+    private final int[] asapTimes; // asapTimes[i] => t-level of task i without communication costs
+    private final int[] alapTimes; // alapTimes[i] => critical path length - bLevels[i]
+    private final int criticalPathLength;
+
+    /**
+     * @param topologicalOrder every task, with each task after all of its parents.
+     * @param bLevels bLevels[i] => b-level of task i without communication costs.
+     * @param bLevelsWithCommCosts bLevelsWithCommCosts[i] => b-level of task i with communication costs.
+     * @param tLevels tLevels[i] => t-level of task i with communication costs.
+     * @param asapTimes asapTimes[i] => earliest start of task i without communication costs.
+     * @param alapTimes alapTimes[i] => latest start of task i that does not make the critical path longer.
+     */
+    public TaskLevels(int[] topologicalOrder, int[] bLevels, int[] bLevelsWithCommCosts, int[] tLevels,
+                      int[] asapTimes, int[] alapTimes) {
+        this.topologicalOrder = topologicalOrder;
+        this.bLevels = bLevels;
+        this.bLevelsWithCommCosts = bLevelsWithCommCosts;
+        this.tLevels = tLevels;
+        this.asapTimes = asapTimes;
+        this.alapTimes = alapTimes;
+
+        int length = 0;
+        for (int task = 0; task < bLevels.length; task++) {
+            length = Math.max(length, asapTimes[task] + bLevels[task]);
+        }
+        this.criticalPathLength = length;
+    }
+
+    /**
+     * @return Every task, with each task after all of its parents.
+     */
+    public int[] getTopologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * @return The b-level of every task, without communication costs.
+     */
+    public int[] getBLevels() {
+        return bLevels;
+    }
+
+    /**
+     * @return The b-level of every task, with communication costs.
+     */
+    public int[] getBLevelsWithCommCosts() {
+        return bLevelsWithCommCosts;
+    }
+
+    /**
+     * @return The t-level of every task, with communication costs.
+     */
+    public int[] getTLevels() {
+        return tLevels;
+    }
+
+    /**
+     * @return The earliest start of every task, without communication costs.
+     */
+    public int[] getAsapTimes() {
+        return asapTimes;
+    }
+
+    /**
+     * @return The latest start of every task that does not make the critical path longer.
+     */
+    public int[] getAlapTimes() {
+        return alapTimes;
+    }
+
+    /**
+     * @return The length of the longest path through the task graph, without communication costs. No schedule can
+     * finish earlier.
+     */
+    public int getCriticalPathLength() {
+        return criticalPathLength;
+    }
+
+    /**
+     * @return The length of the longest path through the task, without communication costs. No schedule can finish
+     * earlier.
+     */
+    public int getLowerBound(int task) {
+        return asapTimes[task] + bLevels[task];
+    }
+}
@@ -0,0 +1,473 @@
+package io;
+
+import data.TaskGraph;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The DotParser class reads a task graph in dot format straight into a TaskGraph, without building a GraphStream
+ * graph first. The file is memory-mapped and scanned once, and the durations and edges are collected in int arrays.
+ *
+ * Only the subset of dot used for task graphs is supported: a digraph whose statements are nodes and single edges
+ * with a numeric Weight attribute, plus graph attributes, which are ignored. Tasks are numbered in the order they
+ * first appear, like GraphStream does. When the file uses anything else, such as subgraphs, edge chains or default
+ * node and edge attributes, parse returns null so that the caller can fall back to GraphStream.
+ */
+public class DotParser {
+    private static final String WEIGHT = "Weight";
+
+    // Token types
+    private static final int END = 0;
+    private static final int ID = 1; // a name, number or quoted string
+    private static final int ARROW = 2; // ->
+    private static final int SYMBOL = 3; // one of { } [ ] ; , =
+
+    private final MappedByteBuffer input;
+    private int position = 0;
+
+    private int tokenType;
+    private int tokenStart; // first byte of the current ID token, after the opening quote if it is quoted
+    private int tokenEnd; // one past the last byte of the current ID token, before the closing quote if it is quoted
+    private boolean tokenQuoted;
+    private boolean tokenEscaped; // a quoted ID token that contains a backslash
+    private char symbol; // the current SYMBOL token
+
+    private final Map<String, Integer> taskIds = new HashMap<>(); // task name => task number
+    private String[] taskNames = new String[16];
+    private int[] durations = new int[16];
+    private boolean[] hasDuration = new boolean[16];
+    private int numTasks = 0;
+
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int[] commCosts = new int[16];
+    private int numEdges = 0;
+
+    private boolean hasWeight; // the last attribute list had a Weight
+    private int weight; // the Weight of the last attribute list
+
+    private DotParser(MappedByteBuffer input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads a dot file into a TaskGraph.
+     * @param inputFileName The name of the input dot file.
+     * @return The task graph, or null if the file uses dot syntax that this parser does not support.
+     * @throws IOException If the file can not be read.
+     */
+    public static TaskGraph parse(String inputFileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            DotParser parser = new DotParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return parser.parseGraph() ? parser.createTaskGraph() : null;
+        }
+    }
+
+    /**
+     * graph : ['strict'] 'digraph' [ID] '{' statements '}'
+     * @return false if the syntax is not supported.
+     */
+    private boolean parseGraph() {
+        nextToken();
+        if (isKeyword("strict")) {
+            nextToken();
+        }
+        if (!isKeyword("digraph")) {
+            return false;
+        }
+        nextToken();
+        if (tokenType == ID) {
+            nextToken();
+        }
+        if (!isSymbol('{')) {
+            return false;
+        }
+        nextToken();
+
+        while (!isSymbol('}')) {
+            if (!parseStatement()) {
+                return false;
+            }
+            if (isSymbol(';')) {
+                nextToken();
+            }
+        }
+
+        // Nothing may follow the graph, and every task needs a duration
+        nextToken();
+        if (tokenType != END) {
+            return false;
+        }
+        for (int i = 0; i < numTasks; i++) {
+            if (!hasDuration[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * statement : 'graph' attributes | ID '=' ID | ID [attributes] | ID '->' ID [attributes]
+     * @return false if the syntax is not supported.
+     */
+    private boolean parseStatement() {
+        if (tokenType != ID) {
+            // Anonymous subgraphs, or the end of the file before the closing brace
+            return false;
+        }
+        if (isKeyword("graph")) {
+            nextToken();
+            return parseAttributes();
+        }
+        if (isKeyword("node") || isKeyword("edge") || isKeyword("subgraph")) {
+            // Default attributes could give tasks their weights
+            return false;
+        }
+
+        int start = tokenStart;
+        int end = tokenEnd;
+        boolean quoted = tokenQuoted;
+        boolean escaped = tokenEscaped;
+        nextToken();
+
+        if (isSymbol('=')) {
+            // A graph attribute
+            nextToken();
+            if (tokenType != ID) {
+                return false;
+            }
+            nextToken();
+            return true;
+        }
+
+        int task = getTask(start, end, quoted, escaped);
+        if (tokenType != ARROW) {
+            return parseTaskAttributes(task);
+        }
+
+        nextToken();
+        if (tokenType != ID) {
+            return false;
+        }
+        int child = getTask(tokenStart, tokenEnd, tokenQuoted, tokenEscaped);
+        nextToken();
+        if (tokenType == ARROW) {
+            // Edge chains are not supported
+            return false;
+        }
+        return parseEdgeAttributes(task, child);
+    }
+
+    /**
+     * Reads the attributes of a node statement, which may set the duration of the task.
+     * @return false if the syntax is not supported.
+     */
+    private boolean parseTaskAttributes(int task) {
+        if (!parseAttributes()) {
+            return false;
+        }
+        if (hasWeight) {
+            durations[task] = weight;
+            hasDuration[task] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the attributes of an edge statement, which must set the communication cost of the edge.
+     * @return false if the syntax is not supported.
+     */
+    private boolean parseEdgeAttributes(int parent, int child) {
+        if (!parseAttributes() || !hasWeight) {
+            return false;
+        }
+
+        if (numEdges == sources.length) {
+            sources = Arrays.copyOf(sources, numEdges * 2);
+            targets = Arrays.copyOf(targets, numEdges * 2);
+            commCosts = Arrays.copyOf(commCosts, numEdges * 2);
+        }
+        sources[numEdges] = parent;
+        targets[numEdges] = child;
+        commCosts[numEdges] = weight;
+        numEdges++;
+        return true;
+    }
+
+    /**
+     * attributes : ('[' [ID ['=' ID] [',' | ';']]... ']')...
+     * Sets hasWeight and weight from the Weight attribute, the other attributes are ignored.
+     * @return false if the syntax is not supported.
+     */
+    private boolean parseAttributes() {
+        hasWeight = false;
+        while (isSymbol('[')) {
+            nextToken();
+            while (!isSymbol(']')) {
+                if (tokenType != ID) {
+                    return false;
+                }
+                boolean isWeight = isName(WEIGHT);
+                nextToken();
+                if (isSymbol('=')) {
+                    nextToken();
+                    if (tokenType != ID) {
+                        return false;
+                    }
+                    if (isWeight) {
+                        if (!isNumber()) {
+                            return false;
+                        }
+                        weight = parseInt();
+                        hasWeight = true;
+                    }
+                    nextToken();
+                }
+                if (isSymbol(',') || isSymbol(';')) {
+                    nextToken();
+                }
+            }
+            nextToken();
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of the task with the given name, which is added if it has not been seen yet.
+     */
+    private int getTask(int start, int end, boolean quoted, boolean escaped) {
+        String name = getText(start, end, quoted, escaped);
+        Integer task = taskIds.get(name);
+        if (task != null) {
+            return task;
+        }
+
+        if (numTasks == durations.length) {
+            taskNames = Arrays.copyOf(taskNames, numTasks * 2);
+            durations = Arrays.copyOf(durations, numTasks * 2);
+            hasDuration = Arrays.copyOf(hasDuration, numTasks * 2);
+        }
+        taskNames[numTasks] = name;
+        taskIds.put(name, numTasks);
+        return numTasks++;
+    }
+
+    private TaskGraph createTaskGraph() {
+        return new TaskGraph(Arrays.copyOf(taskNames, numTasks), Arrays.copyOf(durations, numTasks),
+                Arrays.copyOf(sources, numEdges), Arrays.copyOf(targets, numEdges),
+                Arrays.copyOf(commCosts, numEdges));
+    }
+
+    // ----------------------------------------TOKENS-----------------------------------------------
+
+    /**
+     * Moves on to the next token, skipping white space and comments. Anything that is not a known token ends the
+     * input, which makes the parser give up.
+     */
+    private void nextToken() {
+        skipWhiteSpaceAndComments();
+        int limit = input.limit();
+        if (position >= limit) {
+            tokenType = END;
+            return;
+        }
+
+        byte b = input.get(position);
+        if (b == '"') {
+            readQuoted();
+        } else if (b == '-' && position + 1 < limit && input.get(position + 1) == '>') {
+            tokenType = ARROW;
+            position += 2;
+        } else if (isNameByte(b) && !isDigit(b)) {
+            startBareToken();
+            while (position < limit && isNameByte(input.get(position))) {
+                position++;
+            }
+            tokenEnd = position;
+        } else if (isDigit(b) || b == '.' || (b == '-' && position + 1 < limit
+                && (isDigit(input.get(position + 1)) || input.get(position + 1) == '.'))) {
+            // A number: [-] digits [. digits]
+            startBareToken();
+            position++;
+            boolean hasPoint = b == '.';
+            while (position < limit && (isDigit(input.get(position)) || (!hasPoint && input.get(position) == '.'))) {
+                hasPoint |= input.get(position) == '.';
+                position++;
+            }
+            tokenEnd = position;
+        } else if ("{}[];,=".indexOf(b) >= 0) {
+            tokenType = SYMBOL;
+            symbol = (char) b;
+            position++;
+        } else {
+            // Undirected edges, HTML strings and anything else
+            tokenType = END;
+        }
+    }
+
+    private void readQuoted() {
+        int limit = input.limit();
+        tokenType = ID;
+        tokenQuoted = true;
+        tokenEscaped = false;
+        tokenStart = ++position;
+        while (position < limit && input.get(position) != '"') {
+            if (input.get(position) == '\\') {
+                tokenEscaped = true;
+                position++;
+            }
+            position++;
+        }
+        if (position >= limit) {
+            tokenType = END;
+            return;
+        }
+        tokenEnd = position++;
+    }
+
+    private void skipWhiteSpaceAndComments() {
+        int limit = input.limit();
+        while (position < limit) {
+            byte b = input.get(position);
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                position++;
+            } else if (b == '#' && (position == 0 || input.get(position - 1) == '\n')) {
+                skipLine();
+            } else if (b == '/' && position + 1 < limit && input.get(position + 1) == '/') {
+                skipLine();
+            } else if (b == '/' && position + 1 < limit && input.get(position + 1) == '*') {
+                position += 2;
+                while (position + 1 < limit && !(input.get(position) == '*' && input.get(position + 1) == '/')) {
+                    position++;
+                }
+                position += 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipLine() {
+        int limit = input.limit();
+        while (position < limit && input.get(position) != '\n') {
+            position++;
+        }
+    }
+
+    private void startBareToken() {
+        tokenType = ID;
+        tokenQuoted = false;
+        tokenEscaped = false;
+        tokenStart = position;
+    }
+
+    /**
+     * @return true if the byte can be part of a name that is not quoted.
+     */
+    private static boolean isNameByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || isDigit(b) || b == '_'
+                || b < 0; // b < 0 is a byte of a non-ASCII UTF-8 character
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private boolean isSymbol(char c) {
+        return tokenType == SYMBOL && symbol == c;
+    }
+
+    /**
+     * @return true if the current token is the keyword, which is not case sensitive in dot.
+     */
+    private boolean isKeyword(String keyword) {
+        return tokenType == ID && !tokenQuoted && regionMatches(keyword, true);
+    }
+
+    /**
+     * @return true if the current token is the name, quoted or not.
+     */
+    private boolean isName(String name) {
+        return tokenType == ID && !tokenEscaped && regionMatches(name, false);
+    }
+
+    private boolean regionMatches(String text, boolean ignoreCase) {
+        if (tokenEnd - tokenStart != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = (char) input.get(tokenStart + i);
+            char expected = text.charAt(i);
+            if (ignoreCase ? Character.toLowerCase(c) != Character.toLowerCase(expected) : c != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the current token is a number without an exponent. Quoted numbers are strings to GraphStream.
+     */
+    private boolean isNumber() {
+        if (tokenQuoted) {
+            return false;
+        }
+        int i = tokenStart;
+        if (i < tokenEnd && input.get(i) == '-') {
+            i++;
+        }
+        boolean hasDigit = false;
+        boolean hasPoint = false;
+        for (; i < tokenEnd; i++) {
+            byte b = input.get(i);
+            if (b >= '0' && b <= '9') {
+                hasDigit = true;
+            } else if (b == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    /**
+     * @return The current number token rounded towards zero, like Double.intValue.
+     */
+    private int parseInt() {
+        int i = tokenStart;
+        boolean negative = input.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < tokenEnd && input.get(i) != '.'; i++) {
+            value = Math.min(value * 10 + (input.get(i) - '0'), Integer.MAX_VALUE + 1L);
+        }
+        value = negative ? -value : value;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    private String getText(int start, int end, boolean quoted, boolean escaped) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = input.get(start + i);
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (quoted && escaped) {
+            text = text.replace("\\\"", "\"");
+        }
+        return text;
+    }
+}
@@ -0,0 +1,83 @@
+package io;
+
+import data.Schedule;
+import data.Task;
+import data.TaskGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The DotWriter class writes a schedule in dot format straight from a TaskGraph and a Schedule. Each task is written
+ * with its Weight, Start and Processor, followed by every dependency with its Weight. The output goes through a
+ * buffer to a file channel, so no graph object is built and the file is written in large blocks.
+ */
+public class DotWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes a schedule to a dot file.
+     * @param outputFileName The name of the output dot file.
+     * @param taskGraph TaskGraph object that encapsulates the initial tasks and their dependencies.
+     * @param schedule Schedule to write to file.
+     * @throws IOException If the file can not be written.
+     */
+    public static void write(String outputFileName, TaskGraph taskGraph, Schedule schedule) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(outputFileName), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE)) {
+            write(writer, taskGraph, schedule);
+        }
+    }
+
+    private static void write(Writer writer, TaskGraph taskGraph, Schedule schedule) throws IOException {
+        Task[] tasks = schedule.getTasks();
+        StringBuilder line = new StringBuilder();
+
+        writer.write("digraph {\n");
+        for (int i = 0; i < taskGraph.getNumberOfTasks(); i++) {
+            Task task = tasks[i];
+            line.setLength(0);
+            line.append('\t');
+            appendId(line, taskGraph.getTaskName(i));
+            line.append("\t [Weight=").append(task.getFinishTime() - task.getStartTime())
+                    .append(",Start=").append(task.getStartTime())
+                    // the output uses processor numbers from 1, but the data is stored from 0
+                    .append(",Processor=").append(task.getProcessor() + 1)
+                    .append("];\n");
+            writer.append(line);
+        }
+        for (int i = 0; i < taskGraph.getNumberOfTasks(); i++) {
+            for (int j = 0; j < taskGraph.getNumChildren(i); j++) {
+                line.setLength(0);
+                line.append('\t');
+                appendId(line, taskGraph.getTaskName(i));
+                line.append(" -> ");
+                appendId(line, taskGraph.getTaskName(taskGraph.childAt(i, j)));
+                line.append("\t [Weight=").append(taskGraph.childCommCostAt(i, j)).append("];\n");
+                writer.append(line);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    /**
+     * Appends a task id as a quoted string, so that any id read from the input can be written back.
+     */
+    private static void appendId(StringBuilder line, String id) {
+        line.append('"');
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c == '"') {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
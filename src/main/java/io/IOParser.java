@@ -3,12 +3,9 @@ package io;
 import java.io.IOException;
 
 import data.Schedule;
-import data.Task;
+import data.TaskGraph;
 import org.graphstream.graph.Graph;
-import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.DefaultGraph;
-import org.graphstream.stream.file.FileSink;
-import org.graphstream.stream.file.FileSinkDOT;
 import org.graphstream.stream.file.FileSource;
 import org.graphstream.stream.file.FileSourceDOT;
 
@@ -21,6 +18,30 @@ import org.graphstream.stream.file.FileSourceDOT;
  */
 public class IOParser {
 
+    /**
+     * Reads a dot file or a task graph file (see TaskGraphFile) into a TaskGraph. A dot file is read by DotParser,
+     * unless it uses dot syntax that DotParser does not support, in which case it is read by GraphStream.
+     * @param inputFileName The name of the input file.
+     * @return TaskGraph object that encapsulates the initial tasks and their dependencies
+     */
+    public static TaskGraph readTaskGraph(String inputFileName) {
+        TaskGraph taskGraph = null;
+        try {
+            if (TaskGraphFile.isTaskGraphFile(inputFileName)) {
+                return TaskGraphFile.read(inputFileName);
+            }
+            taskGraph = DotParser.parse(inputFileName);
+        } catch (Exception e) {
+            System.err.println("Error reading file.");
+            System.exit(1);
+        }
+
+        if (taskGraph == null) {
+            taskGraph = new TaskGraph(read(inputFileName));
+        }
+        return taskGraph;
+    }
+
     /**
      * Reads a dot file into a Graph object that encapsulates the initial tasks and their dependencies.
      * @param inputFileName The name of the input dot file.
@@ -44,24 +65,14 @@ public class IOParser {
     }
 
     /**
-     * Writes a set of results to the output dot file.
+     * Writes a set of results to the output dot file, see DotWriter.
      * @param outputFileName The name of the output dot file.
-     * @param dotGraph Graph object that encapsulates the initial tasks and their dependencies.
+     * @param taskGraph TaskGraph object that encapsulates the initial tasks and their dependencies.
      * @param schedule Schedule to write to file.
      */
-    public static void write(String outputFileName, Graph dotGraph, Schedule schedule) {
-        Task[] tasks = schedule.getTasks();
-        for(int i = 0; i < dotGraph.getNodeCount(); i++){
-            Node node = dotGraph.getNode(i);
-            Task task = tasks[i];
-            node.setAttribute("Weight", task.getFinishTime() - task.getStartTime());
-            node.setAttribute("Start", task.getStartTime());
-            // the output uses processor numbers from 1, but the data is stored from 0
-            node.setAttribute("Processor", task.getProcessor() + 1);
-        }
-        FileSink file = new FileSinkDOT(true);
+    public static void write(String outputFileName, TaskGraph taskGraph, Schedule schedule) {
         try {
-            file.writeAll(dotGraph, outputFileName);
+            DotWriter.write(outputFileName, taskGraph, schedule);
         } catch (IOException e) {
             e.printStackTrace();
         }
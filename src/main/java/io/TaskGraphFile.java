@@ -0,0 +1,200 @@
+package io;
+
+import data.TaskGraph;
+import data.TaskLevels;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TaskGraphFile class reads and writes task graphs in a compact binary format, so that a large graph only needs
+ * to be parsed from dot once. The file holds the compressed sparse row arrays of the TaskGraph together with the
+ * task levels and equivalence classes calculated by PreProcessor, so none of them are calculated again when it is read.
+ *
+ * All numbers are big-endian ints. The file is laid out as:
+ * MAGIC, VERSION, number of tasks n, number of edges e, flags,
+ * durations[n], parent offsets[n + 1], parents[e], parent comm costs[e],
+ * child offsets[n + 1], children[e], child comm costs[e],
+ * if HAS_TASK_LEVELS is set: topological order[n], b-levels[n], b-levels with communication costs[n], t-levels[n],
+ * ASAP times[n] and ALAP times[n],
+ * equivalence classes[n] if HAS_EQUIVALENCE_CLASSES is set, which the converter takes from the reduced graph,
+ * see Driver.convert,
+ * then for every task the length of its UTF-8 name followed by the name.
+ *
+ * Reading maps the file into memory and copies each array out of it in one bulk copy.
+ */
+public class TaskGraphFile {
+    private static final int MAGIC = 0x54474246; // "TGBF"
+    private static final int VERSION = 2;
+    private static final int HAS_TASK_LEVELS = 1;
+    private static final int HAS_EQUIVALENCE_CLASSES = 2;
+
+    /**
+     * @param fileName The name of a file.
+     * @return true if the file starts like a task graph file.
+     */
+    public static boolean isTaskGraphFile(String fileName) {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the magic number is complete or the file ends
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a task graph, with the PreProcessor results it holds.
+     * @param fileName The name of the file to write.
+     * @param taskGraph The task graph.
+     * @throws IOException If the file can not be written.
+     */
+    public static void write(String fileName, TaskGraph taskGraph) throws IOException {
+        int numTasks = taskGraph.getNumberOfTasks();
+        TaskLevels taskLevels = taskGraph.getTaskLevels();
+        int[] equivalenceClasses = taskGraph.getEquivalenceClasses();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(fileName)), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numTasks);
+            out.writeInt(taskGraph.getNumberOfEdges());
+            out.writeInt((taskLevels != null ? HAS_TASK_LEVELS : 0)
+                    | (equivalenceClasses != null ? HAS_EQUIVALENCE_CLASSES : 0));
+
+            for (int task = 0; task < numTasks; task++) {
+                out.writeInt(taskGraph.getDuration(task));
+            }
+
+            // Parents
+            int offset = 0;
+            for (int task = 0; task < numTasks; task++) {
+                out.writeInt(offset);
+                offset += taskGraph.getNumParents(task);
+            }
+            out.writeInt(offset);
+            for (int task = 0; task < numTasks; task++) {
+                for (int i = 0; i < taskGraph.getNumParents(task); i++) {
+                    out.writeInt(taskGraph.parentAt(task, i));
+                }
+            }
+            for (int task = 0; task < numTasks; task++) {
+                for (int i = 0; i < taskGraph.getNumParents(task); i++) {
+                    out.writeInt(taskGraph.parentCommCostAt(task, i));
+                }
+            }
+
+            // Children
+            offset = 0;
+            for (int task = 0; task < numTasks; task++) {
+                out.writeInt(offset);
+                offset += taskGraph.getNumChildren(task);
+            }
+            out.writeInt(offset);
+            for (int task = 0; task < numTasks; task++) {
+                for (int i = 0; i < taskGraph.getNumChildren(task); i++) {
+                    out.writeInt(taskGraph.childAt(task, i));
+                }
+            }
+            for (int task = 0; task < numTasks; task++) {
+                for (int i = 0; i < taskGraph.getNumChildren(task); i++) {
+                    out.writeInt(taskGraph.childCommCostAt(task, i));
+                }
+            }
+
+            if (taskLevels != null) {
+                writeInts(out, taskLevels.getTopologicalOrder());
+                writeInts(out, taskLevels.getBLevels());
+                writeInts(out, taskLevels.getBLevelsWithCommCosts());
+                writeInts(out, taskLevels.getTLevels());
+                writeInts(out, taskLevels.getAsapTimes());
+                writeInts(out, taskLevels.getAlapTimes());
+            }
+            writeInts(out, equivalenceClasses);
+
+            for (int task = 0; task < numTasks; task++) {
+                byte[] name = taskGraph.getTaskName(task).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        if (values != null) {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Reads a task graph, with the PreProcessor results stored in the file.
+     * @param fileName The name of the file to read.
+     * @return The task graph.
+     * @throws IOException If the file can not be read, or is not a task graph file.
+     */
+    public static TaskGraph read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(fileName + " is not a task graph file of version " + VERSION);
+            }
+            int numTasks = buffer.getInt();
+            int numEdges = buffer.getInt();
+            int flags = buffer.getInt();
+
+            IntBuffer ints = buffer.asIntBuffer();
+            int[] durations = readInts(ints, numTasks);
+            int[] parentOffsets = readInts(ints, numTasks + 1);
+            int[] parents = readInts(ints, numEdges);
+            int[] parentCommCosts = readInts(ints, numEdges);
+            int[] childOffsets = readInts(ints, numTasks + 1);
+            int[] children = readInts(ints, numEdges);
+            int[] childCommCosts = readInts(ints, numEdges);
+            TaskLevels taskLevels = null;
+            if ((flags & HAS_TASK_LEVELS) != 0) {
+                taskLevels = new TaskLevels(readInts(ints, numTasks), readInts(ints, numTasks),
+                        readInts(ints, numTasks), readInts(ints, numTasks), readInts(ints, numTasks),
+                        readInts(ints, numTasks));
+            }
+            int[] equivalenceClasses = (flags & HAS_EQUIVALENCE_CLASSES) != 0 ? readInts(ints, numTasks) : null;
+
+            buffer.position(buffer.position() + ints.position() * Integer.BYTES);
+            String[] taskNames = new String[numTasks];
+            byte[] name = new byte[64];
+            for (int task = 0; task < numTasks; task++) {
+                int length = buffer.getInt();
+                if (length > name.length) {
+                    name = new byte[Math.max(length, name.length * 2)];
+                }
+                buffer.get(name, 0, length);
+                taskNames[task] = new String(name, 0, length, StandardCharsets.UTF_8);
+            }
+
+            TaskGraph taskGraph = new TaskGraph(taskNames, durations, parentOffsets, parents, parentCommCosts,
+                    childOffsets, children, childCommCosts);
+            taskGraph.setTaskLevels(taskLevels);
+            taskGraph.setEquivalenceClasses(equivalenceClasses);
+            return taskGraph;
+        }
+    }
+
+    private static int[] readInts(IntBuffer ints, int length) {
+        int[] values = new int[length];
+        ints.get(values);
+        return values;
+    }
+}
@@ -0,0 +1,501 @@
+package solution;
+
+import data.Schedule;
+import data.Task;
+import data.TaskGraph;
+import solution.helpers.Greedy;
+import solution.helpers.PreProcessor;
+import solution.helpers.SequentialScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ComponentScheduler class schedules a task graph made of several weakly connected components, which only share
+ * the processors they run on, by scheduling each component on its own and packing the component schedules together.
+ *
+ * Every component is solved on every number of processors from 1 to P, with the solves running in parallel. Each solve
+ * is a search that stops after a fixed number of states, so it is exact for most components and gives the best
+ * schedule it found and a lower bound for the rest. The solves on P processors run first, as they give the lower bound
+ * of the whole graph below, then the solves on P - 1 processors and so on. Once the solves together have expanded a
+ * fixed number of states, or the lower bounds of the solves show that no packing can meet the lower bound of the whole
+ * graph, the remaining component schedules are only greedy.
+ * The processors are then split into groups, and the components given to a group run one after the other on the
+ * processors of the group. A branch and bound search finds the groups with the earliest finish time.
+ *
+ * A packed schedule never runs two components side by side on the same processors, so it is only known to be optimal
+ * when it meets a lower bound of the whole graph: the optimal finish time of a component on all P processors, or the
+ * total duration shared evenly by the processors. When every component is a single task the packing search covers
+ * every schedule, so it is also optimal if the search finishes. Otherwise it is a good initial schedule for the search
+ * over the whole graph.
+ */
+public class ComponentScheduler {
+    private static final int MAX_COMPONENT_TASKS = 16; // larger components are not solved on their own
+    private static final int MAX_COMPONENTS = 10_000; // graphs with more components are not decomposed
+    private static final long MAX_PACKING_STATES = 1_000_000L; // states the packing search expands at most
+    private static final long MAX_SOLVE_STATES = 10_000L; // states the search of one component expands at most
+    private static final long MAX_TOTAL_SOLVE_STATES = 5_000_000L; // states all component searches expand at most
+
+    private final int numProcessors;
+    private final TaskGraph taskGraph;
+    private final int numComponents;
+    private final int[][] componentTasks; // componentTasks[c] => the tasks of component c, in order of their ids
+    private TaskGraph[] componentGraphs; // componentGraphs[c] => component c as a task graph of its own
+    private Schedule[][] componentSchedules; // componentSchedules[c][k - 1] => best schedule of c on k processors
+    private int[][] componentLowerBounds; // componentLowerBounds[c][k - 1] => no schedule of c on k processors is shorter
+    private final AtomicLong solveStates = new AtomicLong(); // states expanded by the component searches so far
+
+    // The packing search. Components are packed in the order of packingOrder, the groups opened so far have
+    // groupSizes[0..numGroups) processors and finish at groupLoads[0..numGroups).
+    private int[] packingOrder;
+    private int[] groupSizes;
+    private int[] groupLoads;
+    private int numGroups;
+    private int[] componentGroups; // componentGroups[c] => group component c is packed into
+    private int[] componentStarts; // componentStarts[c] => time component c starts in its group
+    private int[][] moveBuffers; // moveBuffers[i] => the ways to pack the i-th component, see addMoves
+    private int[][] moveFinishTimes; // moveFinishTimes[i][m] => finish time of the group after move m
+    private int[] numMoves; // numMoves[i] => number of ways to pack the i-th component
+    private int[] nextMoves; // nextMoves[i] => the next move tried for the i-th component
+    private int[] freeProcessors; // freeProcessors[i] => processors not in a group before the i-th component is packed
+    private int[] groupsBefore; // groupsBefore[i] => numGroups before the i-th component is packed
+    private long packingStates;
+
+    private int lowerBound;
+    private int bestFinishTime = Integer.MAX_VALUE;
+    private int[] bestGroupSizes;
+    private int[] bestComponentGroups;
+    private int[] bestComponentStarts;
+    private boolean isOptimal;
+
+    /**
+     * @param taskGraph the task graph to schedule.
+     * @param numProcessors number of processors we have to schedule the tasks on.
+     */
+    public ComponentScheduler(TaskGraph taskGraph, int numProcessors) {
+        this.taskGraph = taskGraph;
+        this.numProcessors = numProcessors;
+
+        int[] components = PreProcessor.getComponents(taskGraph);
+        int count = 0;
+        int[] sizes = new int[taskGraph.getNumberOfTasks()];
+        for (int component : components) {
+            count = Math.max(count, component + 1);
+            sizes[component]++;
+        }
+        numComponents = count;
+        componentTasks = new int[numComponents][];
+        for (int c = 0; c < numComponents; c++) {
+            componentTasks[c] = new int[sizes[c]];
+        }
+        Arrays.fill(sizes, 0);
+        for (int task = 0; task < components.length; task++) {
+            componentTasks[components[task]][sizes[components[task]]++] = task;
+        }
+    }
+
+    /**
+     * @return true if the task graph has more than one component and every component is small enough to be solved on
+     * its own.
+     */
+    public boolean canDecompose() {
+        if (numComponents < 2 || numComponents > MAX_COMPONENTS) {
+            return false;
+        }
+        for (int[] tasks : componentTasks) {
+            if (tasks.length > MAX_COMPONENT_TASKS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves every component and packs them onto the processors.
+     * @param numThreads number of component solves run at the same time.
+     * @return the best packed schedule.
+     */
+    public Schedule run(int numThreads) {
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            solveComponents(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        pack();
+
+        isOptimal = bestFinishTime == lowerBound
+                || (packingStates < MAX_PACKING_STATES && numComponents == taskGraph.getNumberOfTasks());
+        return createOutput();
+    }
+
+    /**
+     * @return true if the schedule returned by run is optimal.
+     */
+    public boolean isOptimal() {
+        return isOptimal;
+    }
+
+    /**
+     * Finds a schedule of every component on every number of processors it can use, and the lower bound of the whole
+     * graph.
+     */
+    private void solveComponents(ForkJoinPool pool) {
+        componentGraphs = new TaskGraph[numComponents];
+        componentSchedules = new Schedule[numComponents][];
+        componentLowerBounds = new int[numComponents][];
+        List<Callable<Void>> solves = new ArrayList<>();
+        for (int c = 0; c < numComponents; c++) {
+            componentGraphs[c] = createComponentGraph(componentTasks[c]);
+            // Calculated before the solves start, so the threads only read what the task graph keeps
+            PreProcessor.getTaskLevels(componentGraphs[c]);
+            PreProcessor.getEquivalenceClasses(componentGraphs[c]);
+
+            int maxProcessors = Math.min(numProcessors, componentTasks[c].length);
+            componentSchedules[c] = new Schedule[maxProcessors];
+            componentLowerBounds[c] = new int[maxProcessors];
+            solve(c, 1);
+            if (maxProcessors > 1) {
+                solves.add(createSolve(c, maxProcessors));
+            }
+        }
+        invokeAll(pool, solves);
+
+        int totalDuration = 0;
+        lowerBound = 0;
+        for (int c = 0; c < numComponents; c++) {
+            int work = componentLowerBounds[c][0];
+            int maxProcessors = componentLowerBounds[c].length;
+            totalDuration += work;
+            lowerBound = Math.max(lowerBound, componentLowerBounds[c][maxProcessors - 1]);
+            // More processors never make a component finish later
+            for (int k = 2; k < maxProcessors; k++) {
+                componentLowerBounds[c][k - 1] = Math.max(componentLowerBounds[c][maxProcessors - 1],
+                        (int) Math.ceil(work / (double) k));
+            }
+        }
+        lowerBound = Math.max(lowerBound, (int) Math.ceil(totalDuration / (double) numProcessors));
+
+        for (int k = numProcessors - 1; k >= 2 && solveStates.get() < MAX_TOTAL_SOLVE_STATES && canMeetLowerBound();
+             k--) {
+            solves.clear();
+            for (int c = 0; c < numComponents; c++) {
+                if (componentSchedules[c].length > k) {
+                    solves.add(createSolve(c, k));
+                }
+            }
+            invokeAll(pool, solves);
+        }
+
+        // The solves that were skipped are only scheduled greedily
+        for (int c = 0; c < numComponents; c++) {
+            for (int k = 2; k < componentSchedules[c].length; k++) {
+                if (componentSchedules[c][k - 1] == null) {
+                    componentSchedules[c][k - 1] = new Greedy().run(componentGraphs[c], k);
+                }
+            }
+        }
+    }
+
+    /**
+     * A group of k processors runs its components one after the other, so the finish times of its components on k
+     * processors add up to at most the lower bound, and k times that is at most k times the lower bound. Adding this
+     * up over the groups, no packing can meet the lower bound unless every component has a number of processors k it
+     * can finish on by the lower bound, and the smallest of k times its finish time, summed over the components, is at
+     * most P times the lower bound.
+     * @return false if no packing can finish at the lower bound of the whole graph.
+     */
+    private boolean canMeetLowerBound() {
+        long area = 0;
+        for (int c = 0; c < numComponents; c++) {
+            long minArea = Long.MAX_VALUE;
+            for (int k = 1; k <= componentLowerBounds[c].length; k++) {
+                if (componentLowerBounds[c][k - 1] <= lowerBound) {
+                    minArea = Math.min(minArea, (long) k * componentLowerBounds[c][k - 1]);
+                }
+            }
+            if (minArea == Long.MAX_VALUE) {
+                return false;
+            }
+            area += minArea;
+        }
+        return area <= (long) numProcessors * lowerBound;
+    }
+
+    private Callable<Void> createSolve(int c, int processors) {
+        return () -> {
+            solve(c, processors);
+            return null;
+        };
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> solves) {
+        try {
+            for (Future<Void> solve : pool.invokeAll(solves)) {
+                solve.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Could not solve a component", e);
+        }
+    }
+
+    /**
+     * Finds a schedule of component c on the given number of processors, which is optimal unless the search reaches
+     * its state limit, and a lower bound on the finish time of every schedule of c on that many processors.
+     */
+    private void solve(int c, int processors) {
+        TaskGraph componentGraph = componentGraphs[c];
+        Schedule schedule;
+        int scheduleLowerBound;
+        if (processors == 1) {
+            schedule = new SequentialScheduler(componentGraph).getSchedule();
+            scheduleLowerBound = schedule.getFinishTime();
+        } else {
+            SolutionSequential solution = new SolutionSequential(componentGraph, processors);
+            solution.setStateLimit(solveStates.get() < MAX_TOTAL_SOLVE_STATES ? MAX_SOLVE_STATES : 0);
+            solution.setInitialSchedule(new Greedy().run(componentGraph, processors));
+            schedule = solution.run();
+            solveStates.addAndGet(solution.getStatistics().get(SearchStatistics.Counter.STATES_EXPANDED));
+            scheduleLowerBound = solution.isStateLimitReached()
+                    ? Math.max(solution.getLowerBound(), componentLowerBounds[c][processors - 1])
+                    : schedule.getFinishTime();
+        }
+        componentSchedules[c][processors - 1] = schedule;
+        componentLowerBounds[c][processors - 1] = scheduleLowerBound;
+    }
+
+    /**
+     * @param tasks the tasks of the component, in order of their ids.
+     * @return the component as a task graph of its own, where task i is tasks[i].
+     */
+    private TaskGraph createComponentGraph(int[] tasks) {
+        int[] localIds = new int[taskGraph.getNumberOfTasks()];
+        String[] taskNames = new String[tasks.length];
+        int[] durations = new int[tasks.length];
+        int numEdges = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            localIds[tasks[i]] = i;
+            taskNames[i] = taskGraph.getTaskName(tasks[i]);
+            durations[i] = taskGraph.getDuration(tasks[i]);
+            numEdges += taskGraph.getNumChildren(tasks[i]);
+        }
+
+        int[] sources = new int[numEdges];
+        int[] targets = new int[numEdges];
+        int[] commCosts = new int[numEdges];
+        int edge = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            for (int j = 0; j < taskGraph.getNumChildren(tasks[i]); j++) {
+                sources[edge] = i;
+                targets[edge] = localIds[taskGraph.childAt(tasks[i], j)];
+                commCosts[edge] = taskGraph.childCommCostAt(tasks[i], j);
+                edge++;
+            }
+        }
+        return new TaskGraph(taskNames, durations, sources, targets, commCosts);
+    }
+
+    /**
+     * @return the finish time of the best schedule of component c on the given number of processors. A component never
+     * uses more processors than it has tasks.
+     */
+    private int getFinishTime(int c, int processors) {
+        Schedule[] schedules = componentSchedules[c];
+        return schedules[Math.min(processors, schedules.length) - 1].getFinishTime();
+    }
+
+    /**
+     * Searches for the groups of processors and the components given to each group with the earliest finish time.
+     */
+    private void pack() {
+        // The longest components are packed first, as they decide the finish time the most
+        Integer[] order = new Integer[numComponents];
+        for (int c = 0; c < numComponents; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(getFinishTime(b, 1), getFinishTime(a, 1)));
+        packingOrder = new int[numComponents];
+        for (int i = 0; i < numComponents; i++) {
+            packingOrder[i] = order[i];
+        }
+
+        groupSizes = new int[numProcessors];
+        groupLoads = new int[numProcessors];
+        componentGroups = new int[numComponents];
+        componentStarts = new int[numComponents];
+        moveBuffers = new int[numComponents][2 * numProcessors];
+        moveFinishTimes = new int[numComponents][2 * numProcessors];
+        numMoves = new int[numComponents];
+        nextMoves = new int[numComponents];
+        freeProcessors = new int[numComponents + 1];
+        groupsBefore = new int[numComponents];
+        numGroups = 0;
+        packingStates = 0;
+        search();
+    }
+
+    /**
+     * A depth first search over the moves of every component, which keeps the moves of the i-th component and the
+     * next one to try in the buffers of index i, so that it needs no stack however many components there are.
+     */
+    private void search() {
+        int index = 0;
+        freeProcessors[0] = numProcessors;
+        boolean isNewState = true;
+        while (index >= 0) {
+            if (isNewState) {
+                if (bestFinishTime == lowerBound || packingStates >= MAX_PACKING_STATES) {
+                    return;
+                }
+                packingStates++;
+
+                if (index == numComponents) {
+                    // Every group finishes before the best finish time, or it would have been pruned
+                    int finishTime = 0;
+                    for (int g = 0; g < numGroups; g++) {
+                        finishTime = Math.max(finishTime, groupLoads[g]);
+                    }
+                    bestFinishTime = finishTime;
+                    bestGroupSizes = Arrays.copyOf(groupSizes, numGroups);
+                    bestComponentGroups = componentGroups.clone();
+                    bestComponentStarts = componentStarts.clone();
+                    index--;
+                    isNewState = false;
+                    continue;
+                }
+                addMoves(index);
+            } else {
+                undoMove(index);
+            }
+
+            int i = nextMoves[index];
+            if (i < numMoves[index] && moveFinishTimes[index][i] < bestFinishTime) {
+                nextMoves[index]++;
+                doMove(index, i);
+                index++;
+                isNewState = true;
+            } else {
+                index--;
+                isNewState = false;
+            }
+        }
+    }
+
+    /**
+     * Finds the ways to pack the i-th component. A move packs the component into group g if it is less than
+     * numGroups, or opens a new group of (move - numGroups + 1) processors. The moves that finish earliest are tried
+     * first, so the first packing found is the one of a best fit heuristic.
+     */
+    private void addMoves(int index) {
+        int c = packingOrder[index];
+        int[] moves = moveBuffers[index];
+        int[] finishTimes = moveFinishTimes[index];
+        int count = 0;
+        for (int g = 0; g < numGroups; g++) {
+            if (!hasSameEarlierGroup(g)) {
+                count = addMove(moves, finishTimes, count, g, groupLoads[g] + getFinishTime(c, groupSizes[g]));
+            }
+        }
+        for (int size = 1; size <= freeProcessors[index]; size++) {
+            count = addMove(moves, finishTimes, count, numGroups + size - 1, getFinishTime(c, size));
+        }
+        numMoves[index] = count;
+        nextMoves[index] = 0;
+        groupsBefore[index] = numGroups;
+    }
+
+    /**
+     * Packs the i-th component with move m of its moves.
+     */
+    private void doMove(int index, int m) {
+        int c = packingOrder[index];
+        int move = moveBuffers[index][m];
+        if (move < numGroups) {
+            componentGroups[c] = move;
+            componentStarts[c] = groupLoads[move];
+            groupLoads[move] = moveFinishTimes[index][m];
+            freeProcessors[index + 1] = freeProcessors[index];
+        } else {
+            int size = move - numGroups + 1;
+            componentGroups[c] = numGroups;
+            componentStarts[c] = 0;
+            groupSizes[numGroups] = size;
+            groupLoads[numGroups] = moveFinishTimes[index][m];
+            numGroups++;
+            freeProcessors[index + 1] = freeProcessors[index] - size;
+        }
+    }
+
+    /**
+     * Takes the i-th component out of the group it was last packed into.
+     */
+    private void undoMove(int index) {
+        int c = packingOrder[index];
+        if (numGroups > groupsBefore[index]) {
+            numGroups--;
+        } else {
+            groupLoads[componentGroups[c]] = componentStarts[c];
+        }
+    }
+
+    /**
+     * Inserts a move into the moves sorted by finish time. Moves with the same finish time keep the order they are
+     * added in, so packing into an existing group comes before opening a new one, and smaller new groups come first.
+     * @return the number of moves.
+     */
+    private static int addMove(int[] moves, int[] finishTimes, int numMoves, int move, int finishTime) {
+        int i = numMoves;
+        while (i > 0 && finishTimes[i - 1] > finishTime) {
+            moves[i] = moves[i - 1];
+            finishTimes[i] = finishTimes[i - 1];
+            i--;
+        }
+        moves[i] = move;
+        finishTimes[i] = finishTime;
+        return numMoves + 1;
+    }
+
+    /**
+     * @return true if an earlier group has the same size and load as group g, so packing into g is the same.
+     */
+    private boolean hasSameEarlierGroup(int g) {
+        for (int other = 0; other < g; other++) {
+            if (groupSizes[other] == groupSizes[g] && groupLoads[other] == groupLoads[g]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the best packed schedule, with the schedule of every component moved to the processors of its group and
+     * delayed until the components before it in the group have finished.
+     */
+    private Schedule createOutput() {
+        int[] firstProcessors = new int[bestGroupSizes.length];
+        for (int g = 1; g < bestGroupSizes.length; g++) {
+            firstProcessors[g] = firstProcessors[g - 1] + bestGroupSizes[g - 1];
+        }
+
+        Task[] tasks = new Task[taskGraph.getNumberOfTasks()];
+        for (int c = 0; c < numComponents; c++) {
+            int group = bestComponentGroups[c];
+            int start = bestComponentStarts[c];
+            Schedule[] schedules = componentSchedules[c];
+            Task[] componentTasksScheduled = schedules[Math.min(bestGroupSizes[group], schedules.length) - 1].getTasks();
+            for (int i = 0; i < componentTasks[c].length; i++) {
+                Task task = componentTasksScheduled[i];
+                tasks[componentTasks[c][i]] = new Task(start + task.getStartTime(), start + task.getFinishTime(),
+                        firstProcessors[group] + task.getProcessor());
+            }
+        }
+        return new Schedule(tasks, bestFinishTime);
+    }
+}
@@ -0,0 +1,131 @@
+package solution;
+
+import data.Schedule;
+import data.Task;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The Incumbent class holds the best schedule found so far, and can be shared by any number of threads without locks.
+ *
+ * The best schedule is an immutable Snapshot, which is replaced as a whole by a compare-and-set, so a reader always
+ * sees the start times, processors and finish time of one and the same schedule. The finish time of the best schedule
+ * is also kept in its own AtomicInteger, so that the pruning checks of the search only cost a single volatile read.
+ */
+public class Incumbent {
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicInteger finishTime = new AtomicInteger(Integer.MAX_VALUE);
+
+    /**
+     * @return finish time of the best schedule found so far, Integer.MAX_VALUE if there is none.
+     */
+    public int getFinishTime() {
+        return finishTime.get();
+    }
+
+    /**
+     * @return the best schedule found so far, null if there is none.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Replaces the best schedule if the given schedule finishes earlier. The arrays are copied, so the caller can keep
+     * changing them afterwards.
+     *
+     * @param finishTime finish time of the schedule.
+     * @param startTimes startTimes[i] => start time of task i.
+     * @param scheduledOn scheduledOn[i] => the processor task i is scheduled on.
+     * @return true if the schedule is now the best schedule.
+     */
+    public boolean offer(int finishTime, int[] startTimes, int[] scheduledOn) {
+        if (finishTime >= getFinishTime()) {
+            return false;
+        }
+        return offer(new Snapshot(finishTime, startTimes.clone(), scheduledOn.clone()));
+    }
+
+    /**
+     * Replaces the best schedule if the given schedule finishes earlier.
+     *
+     * @param schedule the schedule.
+     * @return true if the schedule is now the best schedule.
+     */
+    public boolean offer(Schedule schedule) {
+        if (schedule.getFinishTime() >= getFinishTime()) {
+            return false;
+        }
+
+        Task[] tasks = schedule.getTasks();
+        int[] startTimes = new int[tasks.length];
+        int[] scheduledOn = new int[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            startTimes[i] = tasks[i].getStartTime();
+            scheduledOn[i] = tasks[i].getProcessor();
+        }
+        return offer(new Snapshot(schedule.getFinishTime(), startTimes, scheduledOn));
+    }
+
+    private boolean offer(Snapshot newSnapshot) {
+        Snapshot current;
+        do {
+            current = snapshot.get();
+            if (current != null && current.finishTime <= newSnapshot.finishTime) {
+                return false;
+            }
+        } while (!snapshot.compareAndSet(current, newSnapshot));
+
+        // The finish time is only lowered after the snapshot is published, so a thread that prunes against it can
+        // always find a schedule that is at least as good. Another thread may have published an even better schedule
+        // in between, so the finish time never goes back up.
+        finishTime.accumulateAndGet(newSnapshot.finishTime, Math::min);
+        return true;
+    }
+
+    /**
+     * An immutable complete schedule.
+     */
+    public static final class Snapshot {
+        private final int finishTime;
+        private final int[] startTimes; // startTimes[i] => start time of task i
+        private final int[] scheduledOn; // scheduledOn[i] => the processor task i is scheduled on
+
+        private Snapshot(int finishTime, int[] startTimes, int[] scheduledOn) {
+            this.finishTime = finishTime;
+            this.startTimes = startTimes;
+            this.scheduledOn = scheduledOn;
+        }
+
+        /**
+         * @return The finish time of the schedule.
+         */
+        public int getFinishTime() {
+            return finishTime;
+        }
+
+        /**
+         * @param task The task.
+         * @return The start time of the task.
+         */
+        public int getStartTime(int task) {
+            return startTimes[task];
+        }
+
+        /**
+         * @param task The task.
+         * @return The processor the task is scheduled on.
+         */
+        public int getProcessor(int task) {
+            return scheduledOn[task];
+        }
+
+        /**
+         * @return The number of tasks in the schedule.
+         */
+        public int getNumTasks() {
+            return startTimes.length;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package solution;
+
+import data.TaskGraph;
+import solution.helpers.PreProcessor;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class improves the best schedule found so far with simulated annealing, on its own thread while the search
+ * runs, and offers every schedule that finishes earlier to the incumbent, so the search prunes against it right away.
+ *
+ * A schedule is kept as an order of the tasks, which puts every task after its parents, and a processor for every
+ * task. It is turned into start times by appending the tasks in order to their processors, each as early as its
+ * processor and the data of its parents allow. A move changes the processor of a task, swaps the processors of two
+ * tasks, or swaps two neighbouring tasks in the order. Moves that make the schedule finish later are sometimes kept,
+ * less often the later it finishes and the colder the search has become, so the search can leave local optima.
+ */
+public class LocalSearchImprover implements Runnable {
+    private static final double INITIAL_TEMPERATURE = 0.02; // fraction of the finish time a worse move may cost
+    private static final int MIN_ROUND_MOVES = 1_000; // moves per round, from hot to cold, for small graphs
+    private static final int ROUND_MOVES_PER_TASK = 100;
+
+    private final TaskGraph taskGraph;
+    private final int numProcessors;
+    private final int numTasks;
+    private final Incumbent incumbent;
+    private final int lowerBound;
+    private final Random random = new Random(0);
+    private volatile boolean isStopped;
+    private long improvements;
+
+    private int[] order; // every task, each after its parents
+    private int[] processors; // processors[i] => the processor task i is scheduled on
+    private int[] startTimes; // startTimes[i] => start time of task i, found by decode
+    private int[] finishTimes; // finishTimes[i] => finish time of task i, found by decode
+    private int[] processorFinishTimes;
+
+    /**
+     * @param taskGraph the task graph of the search.
+     * @param numProcessors number of processors we have to schedule the tasks on.
+     * @param incumbent the best schedule of the search, which must already hold the initial schedule.
+     * @param lowerBound no schedule finishes earlier, so the local search stops once one does.
+     */
+    public LocalSearchImprover(TaskGraph taskGraph, int numProcessors, Incumbent incumbent, int lowerBound) {
+        this.taskGraph = taskGraph;
+        this.numProcessors = numProcessors;
+        this.numTasks = taskGraph.getNumberOfTasks();
+        this.incumbent = incumbent;
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Improves the incumbent until stop is called, or until it finishes at the lower bound.
+     */
+    @Override
+    public void run() {
+        if (numTasks < 2 || numProcessors < 2 || incumbent.getSnapshot() == null) {
+            return;
+        }
+        order = new int[numTasks];
+        processors = new int[numTasks];
+        startTimes = new int[numTasks];
+        finishTimes = new int[numTasks];
+        processorFinishTimes = new int[numProcessors];
+
+        int roundMoves = Math.max(MIN_ROUND_MOVES, ROUND_MOVES_PER_TASK * numTasks);
+        while (!isStopped && incumbent.getFinishTime() > lowerBound) {
+            // Every round starts from the best schedule, which the search may have improved as well
+            int finishTime = load(incumbent.getSnapshot());
+            double initialTemperature = Math.max(1, INITIAL_TEMPERATURE * finishTime);
+            for (int move = 0; move < roundMoves && !isStopped; move++) {
+                double temperature = initialTemperature * (1 - move / (double) roundMoves);
+                finishTime = tryMove(finishTime, temperature);
+            }
+        }
+    }
+
+    /**
+     * Stops run soon after. Can be called by any thread.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * @return number of schedules offered to the incumbent that were better than it. Only valid after run returns.
+     */
+    public long getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * Makes a random move, and keeps it or undoes it.
+     * @param finishTime finish time of the current schedule.
+     * @param temperature how much later the schedule of a kept move may finish, on average.
+     * @return finish time of the schedule after the move, or of the current schedule if the move is undone.
+     */
+    private int tryMove(int finishTime, double temperature) {
+        int kind = random.nextInt(3);
+        int task = random.nextInt(numTasks);
+        int other = -1;
+        int previousProcessor = processors[task];
+        int position = -1;
+
+        if (kind == 0) {
+            int processor = random.nextInt(numProcessors - 1);
+            processors[task] = processor < previousProcessor ? processor : processor + 1;
+        } else if (kind == 1) {
+            other = random.nextInt(numTasks);
+            if (processors[other] == previousProcessor) {
+                return finishTime;
+            }
+            processors[task] = processors[other];
+            processors[other] = previousProcessor;
+        } else {
+            position = random.nextInt(numTasks - 1);
+            if (isParent(order[position], order[position + 1])) {
+                return finishTime;
+            }
+            swapInOrder(position);
+        }
+
+        int newFinishTime = decode();
+        int increase = newFinishTime - finishTime;
+        if (increase <= 0 || random.nextDouble() < Math.exp(-increase / temperature)) {
+            if (newFinishTime < incumbent.getFinishTime() && incumbent.offer(newFinishTime, startTimes, processors)) {
+                improvements++;
+            }
+            return newFinishTime;
+        }
+
+        // Undo the move
+        if (kind == 0) {
+            processors[task] = previousProcessor;
+        } else if (kind == 1) {
+            processors[other] = processors[task];
+            processors[task] = previousProcessor;
+        } else {
+            swapInOrder(position);
+        }
+        return finishTime;
+    }
+
+    /**
+     * Takes the order and processors of the tasks from a schedule. Ordering the tasks by start time, then by finish
+     * time, puts every task after its parents and after the earlier tasks on its processor. Only tasks with a zero
+     * duration can tie, so ties are kept in topological order. Decoding the order never starts a task later than the
+     * schedule does.
+     * @return finish time of the decoded schedule.
+     */
+    private int load(Incumbent.Snapshot snapshot) {
+        int[] topologicalOrder = PreProcessor.getTaskLevels(taskGraph).getTopologicalOrder();
+        Integer[] sorted = new Integer[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            sorted[i] = topologicalOrder[i];
+            processors[i] = snapshot.getProcessor(i);
+        }
+        // The sort is stable, so tasks with the same start and finish time keep their topological order
+        Arrays.sort(sorted, (a, b) -> snapshot.getStartTime(a) != snapshot.getStartTime(b)
+                ? Integer.compare(snapshot.getStartTime(a), snapshot.getStartTime(b))
+                : Integer.compare(taskGraph.getDuration(a), taskGraph.getDuration(b)));
+        for (int i = 0; i < numTasks; i++) {
+            order[i] = sorted[i];
+        }
+        return decode();
+    }
+
+    /**
+     * Appends the tasks in order to their processors, each as early as possible.
+     * @return finish time of the schedule.
+     */
+    private int decode() {
+        Arrays.fill(processorFinishTimes, 0);
+        int finishTime = 0;
+        for (int task : order) {
+            int processor = processors[task];
+            int startTime = processorFinishTimes[processor];
+            for (int j = 0; j < taskGraph.getNumParents(task); j++) {
+                int parent = taskGraph.parentAt(task, j);
+                int dataArrival = finishTimes[parent];
+                if (processors[parent] != processor) {
+                    dataArrival += taskGraph.parentCommCostAt(task, j);
+                }
+                startTime = Math.max(startTime, dataArrival);
+            }
+            startTimes[task] = startTime;
+            finishTimes[task] = startTime + taskGraph.getDuration(task);
+            processorFinishTimes[processor] = finishTimes[task];
+            finishTime = Math.max(finishTime, finishTimes[task]);
+        }
+        return finishTime;
+    }
+
+    /**
+     * @return true if the first task is a parent of the second task.
+     */
+    private boolean isParent(int parent, int child) {
+        for (int i = 0; i < taskGraph.getNumChildren(parent); i++) {
+            if (taskGraph.childAt(parent, i) == child) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void swapInOrder(int position) {
+        int task = order[position];
+        order[position] = order[position + 1];
+        order[position + 1] = task;
+    }
+}
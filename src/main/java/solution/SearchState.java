@@ -1,33 +1,73 @@
 package solution;
 
-import java.util.LinkedList;
+import solution.helpers.PartialScheduleHasher;
 
 /**
  * The SearchState class stores data which represents the current state of the search.
  */
 public class SearchState {
 
-    LinkedList<Integer> candidateTasks; // Tasks that can currently be scheduled: they are unscheduled, and have no unscheduled parent tasks
+    int[] candidateTasks; // Tasks that can currently be scheduled: they are unscheduled, and have no unscheduled parent tasks
+    int numCandidates; // Number of candidate tasks, they are at the start of candidateTasks
     protected int[] inDegrees; // inDegrees[i] => number of unscheduled parent tasks of task i
     protected int[] taskStartTimes; // taskStartTimes[i] => start time of task i
     protected int[] scheduledOn;  // scheduledOn[i] => the processor task i is scheduled on
     protected int[] processorFinishTimes; // processorFinishTimes[i] => finishing time of the last task scheduled on processor i
     protected int remainingDuration = 0; // Sum of weights of unscheduled tasks
+    protected PartialScheduleHasher scheduleHash; // Hash of the tasks scheduled so far
     protected int previousProcessor;
     protected boolean childAddedLastRound;
 
-    public SearchState(LinkedList<Integer> candidateTasks, int[] inDegrees, int[] taskStartTimes,
-                       int[] scheduledOn, int[] processorFinishTimes, int remainingDuration, int previousProcessor, boolean childAddedLastRound) {
+    // Buffers of the states searched in place from this state, so that they create no objects. The state with d tasks
+    // scheduled builds the candidate tasks of its children in candidateBuffers[d + 1], and marks the equivalence
+    // classes it has tried in seenClassBuffers[d]. They are created when first needed, and not copied by getDeepCopy.
+    private int[][] candidateBuffers;
+    private boolean[][] seenClassBuffers;
+
+    public SearchState(int[] candidateTasks, int numCandidates, int[] inDegrees, int[] taskStartTimes,
+                       int[] scheduledOn, int[] processorFinishTimes, int remainingDuration, PartialScheduleHasher scheduleHash,
+                       int previousProcessor, boolean childAddedLastRound) {
         this.candidateTasks = candidateTasks;
+        this.numCandidates = numCandidates;
         this.inDegrees = inDegrees;
         this.taskStartTimes = taskStartTimes;
         this.scheduledOn = scheduledOn;
         this.processorFinishTimes = processorFinishTimes;
         this.remainingDuration = remainingDuration;
+        this.scheduleHash = scheduleHash;
         this.previousProcessor = previousProcessor;
         this.childAddedLastRound = childAddedLastRound;
     }
 
+    /**
+     * @param depth number of tasks scheduled.
+     * @return the buffer for the candidate tasks of the states with this many tasks scheduled.
+     */
+    int[] getCandidateBuffer(int depth) {
+        if (candidateBuffers == null) {
+            candidateBuffers = new int[inDegrees.length + 1][];
+        }
+        if (candidateBuffers[depth] == null) {
+            candidateBuffers[depth] = new int[inDegrees.length];
+        }
+        return candidateBuffers[depth];
+    }
+
+    /**
+     * @param depth number of tasks scheduled.
+     * @param numClasses number of equivalence classes.
+     * @return the buffer for the equivalence classes tried by the state with this many tasks scheduled.
+     */
+    boolean[] getSeenClassBuffer(int depth, int numClasses) {
+        if (seenClassBuffers == null) {
+            seenClassBuffers = new boolean[inDegrees.length + 1][];
+        }
+        if (seenClassBuffers[depth] == null) {
+            seenClassBuffers[depth] = new boolean[numClasses];
+        }
+        return seenClassBuffers[depth];
+    }
+
      /**
      * Creates a deep copy of a SearchState. This is used for multithreading.
      * @return SearchState deep copy of this SearchState instance.
@@ -52,9 +92,10 @@ public class SearchState {
         for(int i = 0; i < processorFinishTimes.length; i++){
             processorFinishTimesDuplicate[i] = processorFinishTimes[i];
         }
-        LinkedList<Integer> candidateTasksDuplicate = new LinkedList<>(candidateTasks);
-        SearchState duplicate = new SearchState(candidateTasksDuplicate, inDegreeDuplicate, taskStartTimesDuplicate,
-                scheduledOnDuplicate, processorFinishTimesDuplicate, remainingDurationDuplicate, duplicatePreviousProcessor, duplicateChildAddedLastRound);
+        int[] candidateTasksDuplicate = candidateTasks.clone();
+        SearchState duplicate = new SearchState(candidateTasksDuplicate, numCandidates, inDegreeDuplicate, taskStartTimesDuplicate,
+                scheduledOnDuplicate, processorFinishTimesDuplicate, remainingDurationDuplicate, scheduleHash.getCopy(),
+                duplicatePreviousProcessor, duplicateChildAddedLastRound);
 
         return duplicate;
     }
@@ -0,0 +1,85 @@
+package solution;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SearchStatistics class counts what the search does, such as the number of states expanded and the number of
+ * states pruned by each rule.
+ *
+ * Each counter is a LongAdder, which spreads its increments over several cells when threads contend for it, so the
+ * threads of the parallel search never wait for each other to count. The cells are only summed when a counter is read,
+ * by the GUI poller or the final report.
+ */
+public class SearchStatistics {
+
+    /**
+     * The events that are counted.
+     */
+    public enum Counter {
+        STATES_EXPANDED("States expanded"),
+        DUPLICATES("Duplicate partial schedules"),
+        FTO_ACTIVATIONS("Fixed task order activations"),
+        PRUNED_LOAD_BALANCING("Pruned by load balancing"),
+        PRUNED_CRITICAL_PATH("Pruned by critical path"),
+        PRUNED_LATEST_FINISH_TIME("Pruned by latest finish time"),
+        PRUNED_START_TIME("Pruned by start time and bottom level"),
+        PRUNED_COST("Pruned by A* cost"),
+        PRUNED_EQUIVALENT_TASKS("Pruned by equivalent tasks"),
+        PRUNED_PROCESSOR_ISOMORPHISM("Pruned by processor isomorphism"),
+        PRUNED_PARTIAL_DUPLICATES("Pruned by partial duplicate avoidance"),
+        ROLLOUTS("Partial schedules completed greedily");
+
+        private final String description;
+
+        Counter(String description) {
+            this.description = description;
+        }
+    }
+
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    public SearchStatistics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds one to a counter.
+     * @param counter the counter
+     */
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * Adds a value to a counter.
+     * @param counter the counter
+     * @param value the value to add
+     */
+    public void add(Counter counter, long value) {
+        counters[counter.ordinal()].add(value);
+    }
+
+    /**
+     * @param counter the counter
+     * @return the current value of the counter
+     */
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @return every counter that is not zero, one per line.
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            long value = get(counter);
+            if (value != 0) {
+                report.append(counter.description).append(": ").append(value).append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+}
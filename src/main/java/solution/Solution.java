@@ -3,6 +3,10 @@ package solution;
 import data.Schedule;
 import data.Task;
 import data.TaskGraph;
+import solution.helpers.BoundedSeenScheduleSet;
+import solution.helpers.PreProcessor;
+import solution.helpers.SeenScheduleSet;
+import solution.helpers.StripedSeenScheduleSet;
 
 import java.util.*;
 
@@ -11,24 +15,27 @@ import java.util.*;
  * with the GUI. Global variables and fields that do not change are kept in this class.
  */
 public abstract class Solution {
+    private static final int SEEN_SCHEDULES_STRIPES = 64; // number of independently locked parts of a concurrent seenSchedules
+
     protected TaskGraph taskGraph; //Contains information about the graph such as the adjacency matrix's
     protected int numProcessors;
     protected int numTasks;
     private boolean isVisual = false; //Flag to be used to update the GUI or not
+    private boolean isLossy = false; //Flag to only store hashes of partial schedules for duplicate detection
+    private boolean isOffHeap = false; //Flag to store the hashes of a lossy seenSchedules outside of the heap
+    private int seenSchedulesCapacity = 1 << 10; //Number of partial schedules seenSchedules holds before it grows
+    private long seenSchedulesMemory = 0; //Maximum bytes used by seenSchedules, 0 if it can grow without bound
 
     protected int[] nodePriorities; // The priority of a node to be scheduled
-    protected ArrayList<Integer>[] equivalentNodesList; // index i contains a list of equivalent nodes for node i.
-    protected int[] maxLengthToExitNode; // B levels of each node/task
+    protected int[] equivalenceClass; // equivalenceClass[i] => id shared by task i and all tasks equivalent to it
+    protected int[] maxLengthToExitNode; // B levels of each node/task, shared with the task graph so never changed
 
-    protected volatile int[] bestStartTime; // bestStartTime[i] => start time of task i in best schedule found so far
-    protected volatile int[] bestScheduledOn; // bestScheduledOn[i] => processor that task i is scheduled on, in best schedule
-    protected volatile int bestFinishTime; // earliest finishing time of schedules we have searched
-    protected volatile HashSet<Integer> seenSchedules = new HashSet<>();
+    protected final Incumbent incumbent = new Incumbent(); // best schedule found so far
+    private int lowerBound = -1; // no schedule finishes before this, -1 until it is calculated
+    protected volatile SeenScheduleSet seenSchedules; // partial schedules already searched
 
-    protected volatile long stateCount = 0; //amount of states that we have searched
+    protected final SearchStatistics statistics = new SearchStatistics(); // states searched and pruned so far
     protected volatile boolean isDone;
-    protected volatile List<Task>[] bestSchedule; //current best schedule
-    protected volatile boolean bestChanged = false;
 
     /**
      * @param taskGraph a data structure containing vital information about the DAG.
@@ -50,54 +57,190 @@ public abstract class Solution {
         this.isVisual = true;
     }
 
-    protected synchronized void updateStateCount() {
-        this.stateCount++;
+    /**
+     * Only store the hashes of partial schedules for duplicate detection. This is faster, but may prune optimal
+     * schedules when two different partial schedules have the same hash.
+     */
+    public void setLossy() {
+        this.isLossy = true;
     }
 
-    protected synchronized void setDone() {
-        isDone = true;
+    /**
+     * Store the hashes of partial schedules outside of the heap. Only used with lossy duplicate detection.
+     */
+    public void setOffHeap() {
+        this.isOffHeap = true;
     }
 
     /**
-     * When we have found a schedule that is better than the current one, then we use this method to update it.
+     * @param capacity number of partial schedules the set of searched partial schedules holds before it grows.
      */
-    protected void updateBestScheduleOnVisual() {
-        if (!isVisual) return;  //If the visual is not enabled, we dont do the following computation
-        bestSchedule = new List[numProcessors];
-        for (int i = 0; i < numProcessors; i++) {
-            bestSchedule[i] = new ArrayList<>();
+    public void setSeenSchedulesCapacity(int capacity) {
+        this.seenSchedulesCapacity = capacity;
+    }
+
+    /**
+     * @param bytes maximum number of bytes used by the set of searched partial schedules. When it is full, partial
+     *              schedules are evicted, which only makes the search prune less.
+     */
+    public void setSeenSchedulesMemory(long bytes) {
+        this.seenSchedulesMemory = bytes;
+    }
+
+    /**
+     * @return the set of searched partial schedules, null if the search has not started.
+     */
+    public SeenScheduleSet getSeenSchedules() {
+        return seenSchedules;
+    }
+
+    /**
+     * Creates the empty set of searched partial schedules. Must be called after numTasks and the initial schedule
+     * are set, as no task in a searched partial schedule can start after the initial schedule has finished.
+     */
+    protected void initializeSeenSchedules() {
+        seenSchedules = SeenScheduleSet.create(isLossy, numTasks, numProcessors, incumbent.getFinishTime(),
+                seenSchedulesCapacity, isOffHeap, seenSchedulesMemory);
+    }
+
+    /**
+     * Creates the empty set of searched partial schedules, for a search where many threads add to it at once. The
+     * capacity and memory budget are split evenly between the stripes of the set. A small memory budget is split into
+     * fewer stripes, so that every stripe gets at least the smallest budget of a bounded set.
+     */
+    protected void initializeConcurrentSeenSchedules() {
+        int maxStartTime = incumbent.getFinishTime();
+        int numStripes = SEEN_SCHEDULES_STRIPES;
+        while (seenSchedulesMemory > 0 && numStripes > 1
+                && seenSchedulesMemory / numStripes < BoundedSeenScheduleSet.MIN_MEMORY_BUDGET) {
+            numStripes /= 2;
         }
+        int stripeCapacity = Math.max(1, seenSchedulesCapacity / numStripes);
+        long stripeMemory = seenSchedulesMemory / numStripes;
+        seenSchedules = new StripedSeenScheduleSet(numStripes, () -> SeenScheduleSet.create(isLossy,
+                numTasks, numProcessors, maxStartTime, stripeCapacity, isOffHeap,
+                seenSchedulesMemory > 0 ? Math.max(1, stripeMemory) : 0));
+    }
 
-        for (int i = 0; i < numTasks; i++) {
-            if (bestScheduledOn[i] != -1) {
-                Task task = new Task(bestStartTime[i], taskGraph.getDuration(i), false);
-                bestSchedule[bestScheduledOn[i]].add(task);
+    /**
+     * Finds the tasks that are equivalent to each other, see PreProcessor.getEquivalenceClasses.
+     */
+    protected void initializeEquivalenceClasses() {
+        equivalenceClass = PreProcessor.getEquivalenceClasses(taskGraph);
+    }
+
+    /**
+     * Sorts tasks by non-decreasing priority. The sort is stable, so tasks with the same priority keep their order.
+     * Candidate lists are short, so an insertion sort is fast and does not create any objects.
+     * @param tasks the array containing the tasks
+     * @param numTasks number of tasks at the start of the array to sort
+     */
+    protected void sortByPriority(int[] tasks, int numTasks) {
+        for (int i = 1; i < numTasks; i++) {
+            int task = tasks[i];
+            int priority = nodePriorities[task];
+            int j = i - 1;
+            while (j >= 0 && nodePriorities[tasks[j]] > priority) {
+                tasks[j + 1] = tasks[j];
+                j--;
             }
+            tasks[j + 1] = task;
+        }
+    }
+
+    /**
+     * @return the lower bound on the finish time of every schedule, see PreProcessor.getLowerBound. It is calculated
+     * the first time it is needed.
+     */
+    public int getLowerBound() {
+        if (lowerBound == -1) {
+            lowerBound = PreProcessor.getLowerBound(taskGraph, numProcessors);
         }
-        bestChanged = true;
+        return lowerBound;
+    }
+
+    /**
+     * Nothing can beat a schedule that finishes at the lower bound, so the search stops as soon as it finds one instead
+     * of searching the rest of the tree. getLowerBound must have been called before the search starts.
+     * @return true if the best schedule found so far is optimal.
+     */
+    protected boolean isLowerBoundMet() {
+        return incumbent.getFinishTime() <= lowerBound;
+    }
+
+    protected void updateStateCount() {
+        statistics.increment(SearchStatistics.Counter.STATES_EXPANDED);
+    }
+
+    /**
+     * Checks if the current schedule can be optimal by comparing its lower bounds against the current best finishing
+     * time. If it takes longer or equal time, the current schedule can't be better than the current best schedule.
+     * The incumbent finish time only ever decreases, so a stale read by a parallel search can at worst prune less.
+     * @return true if the schedule could still beat the best schedule
+     */
+    protected boolean isPotentialOptimal(int earliestProcessorFinishTime, int loadBalancedRemainingTime,
+                                         int longestCriticalPath, int latestProcessorFinishTime) {
+        int bestFinishTime = incumbent.getFinishTime();
+        if (earliestProcessorFinishTime + loadBalancedRemainingTime >= bestFinishTime) {
+            statistics.increment(SearchStatistics.Counter.PRUNED_LOAD_BALANCING);
+            return false;
+        }
+        if (earliestProcessorFinishTime + longestCriticalPath >= bestFinishTime) {
+            statistics.increment(SearchStatistics.Counter.PRUNED_CRITICAL_PATH);
+            return false;
+        }
+        if (latestProcessorFinishTime >= bestFinishTime) {
+            statistics.increment(SearchStatistics.Counter.PRUNED_LATEST_FINISH_TIME);
+            return false;
+        }
+
+        return true;
+    }
+
+    protected synchronized void setDone() {
+        isDone = true;
     }
 
     /**
-     * Set initial schedule of the solution so that it can be accessed by a poller, if it is being visualised.
+     * @return the counters of the search.
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the best schedule found so far.
+     */
+    public Incumbent getIncumbent() {
+        return incumbent;
+    }
+
+    /**
+     * Set initial schedule of the solution, which the search has to beat. It can also be accessed by a poller, if it
+     * is being visualised.
      * @param schedule the initial schedule
      */
     public void setInitialSchedule(Schedule schedule) {
-        this.bestFinishTime = schedule.getFinishTime();
+        incumbent.offer(schedule);
         if (!isVisual) return;  //If the visual is not enabled, we dont do the following computation
 
-        this.stateCount = 5 * taskGraph.getNumberOfTasks();
+        statistics.add(SearchStatistics.Counter.STATES_EXPANDED, 5 * taskGraph.getNumberOfTasks());
+    }
 
-        bestSchedule = new List[numProcessors];
-        for (int i = 0; i < numProcessors; i++) {
-            bestSchedule[i] = new ArrayList<>();
+    /**
+     * Helper method to create the output data.Schedule from the best schedule found.
+     *
+     * @return Optimal data.Schedule.
+     */
+    protected Schedule createOutput() {
+        Incumbent.Snapshot best = incumbent.getSnapshot();
+        Task[] optimalSchedule = new Task[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            Task t = new Task(best.getStartTime(i),
+                    best.getStartTime(i) + taskGraph.getDuration(i), best.getProcessor(i));
+            optimalSchedule[i] = t;
         }
 
-        Task[] tasks = schedule.getTasks();
-        for (Task task : tasks) {
-            Task transformedTask = new Task(task.getStartTime(),
-                    task.getFinishTime() - task.getStartTime(), false);
-            bestSchedule[task.getProcessor()].add(transformedTask);
-        }
-        bestChanged = true;
+        return new Schedule(optimalSchedule, best.getFinishTime());
     }
 }
@@ -0,0 +1,309 @@
+package solution;
+
+import data.Schedule;
+import data.TaskGraph;
+import solution.SearchStatistics.Counter;
+import solution.helpers.PartialScheduleHasher;
+import solution.helpers.PreProcessor;
+
+import java.util.*;
+
+/**
+ * The SolutionAStar class finds an optimal schedule for a given DAG using a best-first (A*) search. Partial schedules
+ * are expanded in order of their cost f, which is a lower bound on the finish time of every complete schedule that can
+ * be reached from them. The bounds that make up f are the same as the ones SolutionSequential uses for pruning: load
+ * balancing, critical path and latest processor finish time. Because f never overestimates, the first complete
+ * schedule that is taken off the open list is optimal.
+ */
+public class SolutionAStar extends Solution {
+    private PriorityQueue<AStarState> openStates; // Partial schedules that have been created but not expanded yet
+
+    /**
+     * @param taskGraph      Graph containing tasks as nodes and their dependencies as edges.
+     * @param numProcessors  Number of processors to schedule the tasks on.
+     */
+    public SolutionAStar(TaskGraph taskGraph, int numProcessors) {
+        super(taskGraph, numProcessors);
+    }
+
+    /**
+     * Creates an optimal scheduling of tasks on specified number of processors.
+     * @return optimal schedule found by the run method.
+     */
+    public Schedule run() {
+        SearchState initialState = initialize();
+        openStates.add(new AStarState(initialState, calculateCost(initialState), 0));
+
+        while (!openStates.isEmpty() && !isLowerBoundMet()) {
+            AStarState state = openStates.poll();
+            updateStateCount();
+
+            // Every state on the open list could beat the initial schedule, so the first complete schedule
+            // we take off the list is an optimal schedule.
+            if (state.searchState.numCandidates == 0) {
+                updateBestSchedule(state.searchState);
+                break;
+            }
+
+            expand(state);
+        }
+
+        openStates = null;
+        setDone();
+        return createOutput();
+    }
+
+    /**
+     * Creates every child of a partial schedule by scheduling one of its candidate tasks on one of the processors,
+     * and adds the children that could still beat the best schedule to the open list.
+     *
+     * @param state the partial schedule to expand.
+     */
+    private void expand(AStarState state) {
+        SearchState searchState = state.searchState;
+
+        boolean[] seenClasses = new boolean[numTasks];
+        for (int i = 0; i < searchState.numCandidates; i++) {
+            int candidateTask = searchState.candidateTasks[i];
+            // check for node duplication
+            if (seenClasses[equivalenceClass[candidateTask]]) {
+                statistics.increment(Counter.PRUNED_EQUIVALENT_TASKS);
+                continue;
+            } else {
+                seenClasses[equivalenceClass[candidateTask]] = true;
+            }
+
+            // Calculate information we need about constraints due to communication costs
+            int maxDataArrival = 0;
+            int processorCausingMaxDataArrival = 0;
+            int secondMaxDataArrival = 0;
+            for (int j = 0; j < taskGraph.getNumParents(candidateTask); j++) {
+                int parent = taskGraph.parentAt(candidateTask, j);
+                int dataArrival = searchState.taskStartTimes[parent] + taskGraph.getDuration(parent) + taskGraph.parentCommCostAt(candidateTask, j);
+                if (dataArrival >= maxDataArrival) {
+                    if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
+                        secondMaxDataArrival = maxDataArrival;
+                    }
+                    maxDataArrival = dataArrival;
+                    processorCausingMaxDataArrival = searchState.scheduledOn[parent];
+
+                } else if (dataArrival >= secondMaxDataArrival) {
+                    if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
+                        secondMaxDataArrival = dataArrival;
+                    }
+                }
+            }
+
+            boolean hasBeenScheduledAtStart = false;
+            for (int candidateProcessor = 0; candidateProcessor < numProcessors; candidateProcessor++) {
+                // Avoid processor isomorphism
+                if (searchState.processorFinishTimes[candidateProcessor] == 0) {
+                    if (hasBeenScheduledAtStart) {
+                        // Skip duplicated search space
+                        statistics.increment(Counter.PRUNED_PROCESSOR_ISOMORPHISM);
+                        continue;
+                    } else {
+                        hasBeenScheduledAtStart = true;
+                    }
+                }
+
+                // Find earliest time to schedule candidate task on candidate processor
+                int earliestStartTimeOnCurrentProcessor = searchState.processorFinishTimes[candidateProcessor];
+                if (processorCausingMaxDataArrival != candidateProcessor) {
+                    earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, maxDataArrival);
+                } else {
+                    earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, secondMaxDataArrival);
+                }
+
+                // The cost of a child can never be lower than the cost of its parent, as every schedule that can be
+                // reached from the child can also be reached from the parent.
+                int cost = Math.max(state.cost, earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[candidateTask]);
+                if (cost >= incumbent.getFinishTime()) {
+                    statistics.increment(Counter.PRUNED_START_TIME);
+                    continue;
+                }
+
+                SearchState childState = createChildState(searchState, candidateTask, candidateProcessor,
+                        earliestStartTimeOnCurrentProcessor);
+                cost = Math.max(cost, calculateCost(childState));
+                if (cost >= incumbent.getFinishTime()) {
+                    statistics.increment(Counter.PRUNED_COST);
+                    continue;
+                }
+
+                // Equivalent partial schedules only need to be added to the open list once
+                if (!seenSchedules.add(childState.scheduleHash.getHash(), state.numScheduled + 1,
+                        childState.taskStartTimes,
+                        childState.scheduledOn)) {
+                    statistics.increment(Counter.DUPLICATES);
+                    continue;
+                }
+
+                openStates.add(new AStarState(childState, cost, state.numScheduled + 1));
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of a partial schedule, with one more task scheduled on it.
+     *
+     * @param searchState the partial schedule to copy.
+     * @param task the task to schedule.
+     * @param processor the processor to schedule the task on.
+     * @param startTime the time the task starts on the processor.
+     * @return the new partial schedule.
+     */
+    private SearchState createChildState(SearchState searchState, int task, int processor, int startTime) {
+        SearchState childState = searchState.getDeepCopy();
+
+        // Remove the task, keeping the order of the other candidate tasks
+        int[] candidateTasks = childState.candidateTasks;
+        int numCandidates = 0;
+        for (int i = 0; i < childState.numCandidates; i++) {
+            if (candidateTasks[i] != task) {
+                candidateTasks[numCandidates++] = candidateTasks[i];
+            }
+        }
+        for (int i = 0; i < taskGraph.getNumChildren(task); i++) {
+            int child = taskGraph.childAt(task, i);
+            childState.inDegrees[child]--;
+            if (childState.inDegrees[child] == 0) {
+                candidateTasks[numCandidates++] = child;
+            }
+        }
+        childState.numCandidates = numCandidates;
+
+        childState.remainingDuration -= taskGraph.getDuration(task);
+        childState.processorFinishTimes[processor] = startTime + taskGraph.getDuration(task);
+        childState.scheduledOn[task] = processor;
+        childState.taskStartTimes[task] = startTime;
+        childState.scheduleHash.toggle(task, processor, startTime);
+        childState.previousProcessor = processor;
+
+        return childState;
+    }
+
+    /**
+     * Calculates a lower bound on the finish time of any complete schedule that can be reached from a partial
+     * schedule. This is the largest of the load balancing, critical path and latest processor finish time bounds.
+     * Tasks are only ever appended to the end of a processor, so the load balancing bound accounts for the time
+     * processors have already spent, and the critical path bound uses the earliest time each candidate task can start.
+     *
+     * @param searchState the partial schedule.
+     * @return the lower bound.
+     */
+    private int calculateCost(SearchState searchState) {
+        int totalProcessorTime = searchState.remainingDuration;
+        int latestProcessorFinishTime = 0;
+        for (int l = 0; l < numProcessors; l++) {
+            totalProcessorTime += searchState.processorFinishTimes[l];
+            latestProcessorFinishTime = Math.max(searchState.processorFinishTimes[l], latestProcessorFinishTime);
+        }
+
+        // minimal finish time IF all remaining tasks are evenly distributed amongst processors.
+        int loadBalancedFinishTime = (int) Math.ceil(totalProcessorTime / (double) numProcessors);
+
+        int longestCriticalPath = 0;
+        for (int i = 0; i < searchState.numCandidates; i++) {
+            int task = searchState.candidateTasks[i];
+            int criticalPath = findEarliestStartTime(searchState, task) + maxLengthToExitNode[task];
+            longestCriticalPath = Math.max(longestCriticalPath, criticalPath);
+        }
+
+        return Math.max(latestProcessorFinishTime, Math.max(loadBalancedFinishTime, longestCriticalPath));
+    }
+
+    /**
+     * Finds the earliest time a candidate task could start on any processor, given the partial schedule.
+     *
+     * @param searchState the partial schedule.
+     * @param task the candidate task.
+     * @return earliest start time.
+     */
+    private int findEarliestStartTime(SearchState searchState, int task) {
+        int earliestStartTime = Integer.MAX_VALUE;
+        for (int processor = 0; processor < numProcessors; processor++) {
+            int startTime = searchState.processorFinishTimes[processor];
+            for (int i = 0; i < taskGraph.getNumParents(task); i++) {
+                int parent = taskGraph.parentAt(task, i);
+                int dataArrival = searchState.taskStartTimes[parent] + taskGraph.getDuration(parent);
+                if (searchState.scheduledOn[parent] != processor) {
+                    dataArrival += taskGraph.parentCommCostAt(task, i);
+                }
+                startTime = Math.max(startTime, dataArrival);
+            }
+            earliestStartTime = Math.min(earliestStartTime, startTime);
+        }
+
+        return earliestStartTime;
+    }
+
+    /**
+     * Helper method to initialize all the fields required for the solution.
+     *
+     * @return the empty partial schedule the search starts from.
+     */
+    private SearchState initialize() {
+        maxLengthToExitNode = PreProcessor.getTaskLevels(taskGraph).getBLevels();
+        numTasks = taskGraph.getNumberOfTasks();
+        nodePriorities = maxLengthToExitNode;
+        initializeEquivalenceClasses();
+        getLowerBound();
+
+        initializeSeenSchedules();
+
+        // Ties are broken in favour of partial schedules with more tasks scheduled, as they are closer to being complete
+        openStates = new PriorityQueue<>((a, b) -> a.cost != b.cost ?
+                Integer.compare(a.cost, b.cost) : Integer.compare(b.numScheduled, a.numScheduled));
+
+        int[] candidateTasks = new int[numTasks];
+        int numCandidates = 0;
+        int[] inDegrees = new int[numTasks];
+        int[] taskStartTimes = new int[numTasks];
+        Arrays.fill(taskStartTimes, -1);
+        int[] scheduledOn = new int[numTasks];
+        int[] processorFinishTimes = new int[numProcessors];
+        int remainingDuration = 0;
+        for (int i = 0; i < numTasks; i++) {
+            // calculate remaining duration of tasks to be scheduled
+            remainingDuration += taskGraph.getDuration(i);
+            inDegrees[i] = taskGraph.getNumParents(i);
+            if (inDegrees[i] == 0) {
+                candidateTasks[numCandidates++] = i;
+            }
+        }
+
+        return new SearchState(candidateTasks, numCandidates, inDegrees, taskStartTimes, scheduledOn, processorFinishTimes,
+                remainingDuration, new PartialScheduleHasher(numTasks, numProcessors), -1, false);
+    }
+
+    /**
+     * This method should be called when a complete schedule is taken off the open list. We will update the best
+     * schedule so far if the schedule is better.
+     *
+     * @param searchState the complete schedule.
+     */
+    private void updateBestSchedule(SearchState searchState) {
+        int finishTime = 0;
+        for (int processorFinishTime : searchState.processorFinishTimes) {
+            finishTime = Math.max(finishTime, processorFinishTime);
+        }
+
+        incumbent.offer(finishTime, searchState.taskStartTimes, searchState.scheduledOn);
+    }
+
+    /**
+     * A partial schedule on the open list, together with its cost and the number of tasks it has scheduled.
+     */
+    private static class AStarState {
+        private final SearchState searchState;
+        private final int cost; // lower bound on the finish time of any schedule reachable from this state
+        private final int numScheduled;
+
+        private AStarState(SearchState searchState, int cost, int numScheduled) {
+            this.searchState = searchState;
+            this.cost = cost;
+            this.numScheduled = numScheduled;
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package solution;
 
 import data.Schedule;
-import data.Task;
 import data.TaskGraph;
-import solution.helpers.PartialScheduleHashGenerator;
+import solution.helpers.PartialScheduleHasher;
+import solution.SearchStatistics.Counter;
 import solution.helpers.PreProcessor;
 
 import java.util.*;
@@ -15,6 +15,9 @@ import java.util.concurrent.*;
  * information about the given DAG.
  */
 public class SolutionParallel extends Solution {
+    private static final int FORK_DEPTH = 3; // states with fewer tasks scheduled always fork their children
+    private static final int IN_PLACE_TASKS = 4; // states with this many tasks left are always searched in place
+
     private ForkJoinPool forkJoinPool;
 
     public void setNumCores(int numCores) {
@@ -37,7 +40,7 @@ public class SolutionParallel extends Solution {
         initializeGlobalVars();
         SearchState initialSearchState = initializeState();
 
-        RecursiveSearch recursiveSearch = new RecursiveSearch(initialSearchState);
+        RecursiveSearch recursiveSearch = new RecursiveSearch(initialSearchState, 0);
         forkJoinPool.invoke(recursiveSearch);
 
         setDone();
@@ -52,9 +55,11 @@ public class SolutionParallel extends Solution {
     private class RecursiveSearch extends RecursiveAction {
 
         private SearchState searchState;
+        private final int depth; // number of tasks scheduled in searchState
 
-        private RecursiveSearch(SearchState searchState) {
+        private RecursiveSearch(SearchState searchState, int depth) {
             this.searchState = searchState;
+            this.depth = depth;
         }
 
         /**
@@ -63,204 +68,229 @@ public class SolutionParallel extends Solution {
          */
         @Override
         protected void compute() {
-            updateStateCount();
-
-            // Base case is when queue is empty, i.e. all tasks scheduled.
-            if (searchState.candidateTasks.isEmpty()) {
-                int finishTime = findMaxInArray(searchState.processorFinishTimes);
-
-                synchronized (RecursiveSearch.class) {
-                    //If schedule time is better, update bestFinishTime and best schedule
-                    if (finishTime < bestFinishTime) {
-                        bestFinishTime = finishTime;
-
-                        for (int i = 0; i < bestStartTime.length; i++) {
-                            bestScheduledOn[i] = searchState.scheduledOn[i];
-                            bestStartTime[i] = searchState.taskStartTimes[i];
-                        }
-                        updateBestScheduleOnVisual();
-                    }
-                }
-                return;
-            }
+            search(searchState, depth);
+        }
 
-            // Create a hash code for our partial schedule to check whether we have examined an equivalent schedule before
-            // If we have seen an equivalent schedule we do not need to proceed
-            int hashCode = PartialScheduleHashGenerator.generateHashCode(searchState.taskStartTimes, searchState.scheduledOn, numProcessors);
-            synchronized (RecursiveSearch.class) {
-                if (seenSchedules.contains(hashCode)) {
-                    return;
-                } else {
-                    seenSchedules.add(hashCode);
-                }
-            }
+    }
+
+    /**
+     * Searches a state. Its children are either forked as new RecursiveSearch tasks, or searched in place by changing
+     * the state and backtracking afterwards like SolutionSequential, see shouldFork. Must be called by a thread of the
+     * ForkJoinPool.
+     *
+     * @param searchState the state to search.
+     * @param depth number of tasks scheduled in the state.
+     */
+    private void search(SearchState searchState, int depth) {
+        if (isLowerBoundMet()) {
+            return;
+        }
+        updateStateCount();
+
+        // Base case is when queue is empty, i.e. all tasks scheduled.
+        if (searchState.numCandidates == 0) {
+            int finishTime = findMaxInArray(searchState.processorFinishTimes);
 
-            // Information we need about the current schedule
-            // minimal remaining time IF all remaining tasks are evenly distributed amongst processors.
-            int loadBalancedRemainingTime = (int) Math.ceil(searchState.remainingDuration / (double) numProcessors);
+            //If schedule time is better, update the best schedule
+            incumbent.offer(finishTime, searchState.taskStartTimes, searchState.scheduledOn);
+            return;
+        }
+
+        // Check whether we have examined an equivalent schedule before
+        // If we have seen an equivalent schedule we do not need to proceed
+        if (!seenSchedules.add(searchState.scheduleHash.getHash(), depth, searchState.taskStartTimes,
+                searchState.scheduledOn)) {
+            statistics.increment(Counter.DUPLICATES);
+            return;
+        }
+
+        // Information we need about the current schedule
+        // minimal remaining time IF all remaining tasks are evenly distributed amongst processors.
+        int loadBalancedRemainingTime = (int) Math.ceil(searchState.remainingDuration / (double) numProcessors);
 
-            int earliestProcessorFinishTime = Integer.MAX_VALUE;
-            int latestProcessorFinishTime = 0;
-            for (int l = 0; l < numProcessors; l++) {
-                earliestProcessorFinishTime = Math.min(searchState.processorFinishTimes[l], earliestProcessorFinishTime);
-                latestProcessorFinishTime = Math.max(searchState.processorFinishTimes[l], latestProcessorFinishTime);
+        int earliestProcessorFinishTime = Integer.MAX_VALUE;
+        int latestProcessorFinishTime = 0;
+        for (int l = 0; l < numProcessors; l++) {
+            earliestProcessorFinishTime = Math.min(searchState.processorFinishTimes[l], earliestProcessorFinishTime);
+            latestProcessorFinishTime = Math.max(searchState.processorFinishTimes[l], latestProcessorFinishTime);
+        }
+
+        int[] candidateTasks = searchState.candidateTasks;
+        int candidateCount = searchState.numCandidates;
+        int longestCriticalPath = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int criticalPath = maxLengthToExitNode[candidateTasks[i]];
+            if (criticalPath > longestCriticalPath) {
+                longestCriticalPath = criticalPath;
             }
+        }
 
-            int longestCriticalPath = 0;
-            for (int task : searchState.candidateTasks) {
-                int criticalPath = maxLengthToExitNode[task];
-                if (criticalPath > longestCriticalPath) {
-                    longestCriticalPath = criticalPath;
-                }
+        // Children are either forked as new tasks with their own copy of the state, or searched in place
+        boolean isForking = shouldFork(depth);
+
+        // Iterate through tasks
+        sortByPriority(candidateTasks, candidateCount);
+        // The state is shared with the children searched in place, so this state keeps its own candidate tasks and
+        // tried equivalence classes in the buffers of its depth. The candidate tasks of the children are built in
+        // nextCandidateTasks, which is reused for every candidate task, as forked children take a copy of it.
+        int[] nextCandidateTasks = searchState.getCandidateBuffer(depth + 1);
+        boolean[] seenClasses = searchState.getSeenClassBuffer(depth, numTasks);
+        for (int i = 0; i < candidateCount; i++) {
+            seenClasses[equivalenceClass[candidateTasks[i]]] = false;
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            int candidateTask = candidateTasks[i];
+            if (seenClasses[equivalenceClass[candidateTask]]) {
+                statistics.increment(Counter.PRUNED_EQUIVALENT_TASKS);
+                continue;
+            } else {
+                seenClasses[equivalenceClass[candidateTask]] = true;
             }
 
-            // Iterate through tasks
-            searchState.candidateTasks.sort(Comparator.comparingInt(a -> nodePriorities[a]));
-            HashSet<Integer> seenTasks = new HashSet<>();
-            for (int i = 0; i < searchState.candidateTasks.size(); i++) {
-                List<RecursiveSearch> executableList = new ArrayList<>();
+            // Exit conditions 1
+            if (!isPotentialOptimal(earliestProcessorFinishTime, loadBalancedRemainingTime, longestCriticalPath,
+                    latestProcessorFinishTime)) {
+                continue;
+            }
 
-                int candidateTask = searchState.candidateTasks.remove();
-                if (seenTasks.contains(candidateTask)) {
-                    searchState.candidateTasks.add(candidateTask);
-                    continue;
-                } else {
-                    ArrayList<Integer> equivalentNodes = equivalentNodesList[candidateTask];
-                    seenTasks.addAll(equivalentNodes);
-                }
+            // The candidate tasks of the next states are the other candidate tasks, starting after this one, followed
+            // by the children that this task frees.
+            int nextCandidateCount = 0;
+            for (int j = i + 1; j < candidateCount; j++) {
+                nextCandidateTasks[nextCandidateCount++] = candidateTasks[j];
+            }
+            for (int j = 0; j < i; j++) {
+                nextCandidateTasks[nextCandidateCount++] = candidateTasks[j];
+            }
 
-                // Exit conditions 1
-                boolean loadBalancingConstraint;
-                boolean criticalPathConstraint;
-                boolean latestFinishTimeConstraint;
-                synchronized (RecursiveSearch.class) {
-                    loadBalancingConstraint = earliestProcessorFinishTime + loadBalancedRemainingTime >= bestFinishTime;
-                    criticalPathConstraint = earliestProcessorFinishTime + longestCriticalPath >= bestFinishTime;
-                    latestFinishTimeConstraint = latestProcessorFinishTime >= bestFinishTime;
+            // Update state (Location 1: Candidate data.Task)
+            searchState.remainingDuration -= taskGraph.getDuration(candidateTask);
+            boolean childAddedThisRound = false;
+            for (int j = 0; j < taskGraph.getNumChildren(candidateTask); j++) {
+                int candidateChild = taskGraph.childAt(candidateTask, j);
+                searchState.inDegrees[candidateChild]--;
+                if (searchState.inDegrees[candidateChild] == 0) {
+                    nextCandidateTasks[nextCandidateCount++] = candidateChild;
+                    childAddedThisRound = true;
                 }
-                if (loadBalancingConstraint || criticalPathConstraint || latestFinishTimeConstraint) {
-                    searchState.candidateTasks.add(candidateTask);
-                    continue;
-                }
-
-                // Update state (Location 1: Candidate data.Task)
-                searchState.remainingDuration -= taskGraph.getDuration(candidateTask);
-                List<Integer> candidateChildren = taskGraph.getChildrenList(candidateTask);
-                boolean childAddedThisRound = false;
-                for (Integer candidateChild : candidateChildren) {
-                    searchState.inDegrees[candidateChild]--;
-                    if (searchState.inDegrees[candidateChild] == 0) {
-                        searchState.candidateTasks.add(candidateChild);
-                        childAddedThisRound = true;
+            }
+            searchState.candidateTasks = nextCandidateTasks;
+            searchState.numCandidates = nextCandidateCount;
+            List<RecursiveSearch> executableList = isForking ? new ArrayList<>() : null;
+
+            // Calculate information we need about constraints due to communication costs
+            int maxDataArrival = 0;
+            int processorCausingMaxDataArrival = 0;
+            int secondMaxDataArrival = 0;
+            for (int j = 0; j < taskGraph.getNumParents(candidateTask); j++) {
+                int parent = taskGraph.parentAt(candidateTask, j);
+                int dataArrival = searchState.taskStartTimes[parent] + taskGraph.getDuration(parent) + taskGraph.parentCommCostAt(candidateTask, j);
+                if (dataArrival >= maxDataArrival) {
+                    if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
+                        secondMaxDataArrival = maxDataArrival;
                     }
-                }
+                    maxDataArrival = dataArrival;
+                    processorCausingMaxDataArrival = searchState.scheduledOn[parent];
 
-                // Calculate information we need about constraints due to communication costs
-                int maxDataArrival = 0;
-                int processorCausingMaxDataArrival = 0;
-                int secondMaxDataArrival = 0;
-                List<Integer> parents = taskGraph.getParentsList(candidateTask);
-                for (int parent : parents) {
-                    int dataArrival = searchState.taskStartTimes[parent] + taskGraph.getDuration(parent) + taskGraph.getCommCost(parent, candidateTask);
-                    if (dataArrival >= maxDataArrival) {
-                        if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
-                            secondMaxDataArrival = maxDataArrival;
-                        }
-                        maxDataArrival = dataArrival;
-                        processorCausingMaxDataArrival = searchState.scheduledOn[parent];
-
-                    } else if (dataArrival >= secondMaxDataArrival) {
-                        if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
-                            secondMaxDataArrival = dataArrival;
-                        }
+                } else if (dataArrival >= secondMaxDataArrival) {
+                    if (searchState.scheduledOn[parent] != processorCausingMaxDataArrival) {
+                        secondMaxDataArrival = dataArrival;
                     }
                 }
+            }
 
-                boolean hasBeenScheduledAtStart = false;
-                for (int candidateProcessor = 0; candidateProcessor < numProcessors; candidateProcessor++) { // Iterate through processors
-                    // Avoid processor isomorphism
-                    if (searchState.processorFinishTimes[candidateProcessor] == 0) {
-                        if (hasBeenScheduledAtStart) {
-                            // Skip duplicated search space
-                            continue;
-                        } else {
-                            hasBeenScheduledAtStart = true;
-                        }
-                    }
-
-                    // Partial duplicate avoidance
-                    if(!searchState.childAddedLastRound && candidateProcessor < searchState.previousProcessor){
+            boolean hasBeenScheduledAtStart = false;
+            for (int candidateProcessor = 0; candidateProcessor < numProcessors; candidateProcessor++) { // Iterate through processors
+                // Avoid processor isomorphism
+                if (searchState.processorFinishTimes[candidateProcessor] == 0) {
+                    if (hasBeenScheduledAtStart) {
+                        // Skip duplicated search space
+                        statistics.increment(Counter.PRUNED_PROCESSOR_ISOMORPHISM);
                         continue;
-                    }
-
-                    // Find earliest time to schedule candidate task on candidate processor
-                    int earliestStartTimeOnCurrentProcessor = searchState.processorFinishTimes[candidateProcessor];
-                    if (processorCausingMaxDataArrival != candidateProcessor) {
-                        earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, maxDataArrival);
                     } else {
-                        earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, secondMaxDataArrival);
+                        hasBeenScheduledAtStart = true;
                     }
+                }
 
-                    // Exit conditions 2: tighter constraint now that we have selected the processor
-                    synchronized (RecursiveSearch.class) {
-                        criticalPathConstraint = earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[candidateTask] >= bestFinishTime;
-                    }
-                    if (criticalPathConstraint) {
-                        continue;
-                    }
+                // Partial duplicate avoidance
+                if(!searchState.childAddedLastRound && candidateProcessor < searchState.previousProcessor){
+                    statistics.increment(Counter.PRUNED_PARTIAL_DUPLICATES);
+                    continue;
+                }
 
-                    // Update state (Location 2: Processors)
-                    int prevFinishTime = searchState.processorFinishTimes[candidateProcessor];
-                    int oldPreviousProcessor = searchState.previousProcessor;
-                    boolean oldChildAddedLastRound = searchState.childAddedLastRound;
-                    searchState.previousProcessor = candidateProcessor;
-                    searchState.childAddedLastRound = childAddedThisRound;
-                    searchState.processorFinishTimes[candidateProcessor] = earliestStartTimeOnCurrentProcessor + taskGraph.getDuration(candidateTask);
-                    searchState.scheduledOn[candidateTask] = candidateProcessor;
-                    searchState.taskStartTimes[candidateTask] = earliestStartTimeOnCurrentProcessor;
-
-                    RecursiveSearch recursiveSearch;
-                    recursiveSearch = new RecursiveSearch(searchState.getDeepCopy());
-                    executableList.add(recursiveSearch);
-
-                    // Backtrack state (Location 2: Processors)
-                    searchState.processorFinishTimes[candidateProcessor] = prevFinishTime;
-                    searchState.previousProcessor = oldPreviousProcessor;
-                    searchState.childAddedLastRound = oldChildAddedLastRound;
+                // Find earliest time to schedule candidate task on candidate processor
+                int earliestStartTimeOnCurrentProcessor = searchState.processorFinishTimes[candidateProcessor];
+                if (processorCausingMaxDataArrival != candidateProcessor) {
+                    earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, maxDataArrival);
+                } else {
+                    earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor, secondMaxDataArrival);
+                }
 
+                // Exit conditions 2: tighter constraint now that we have selected the processor
+                if (earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[candidateTask] >= incumbent.getFinishTime()) {
+                    statistics.increment(Counter.PRUNED_START_TIME);
+                    continue;
                 }
 
-                // Backtrack state (Location 1: Candidate data.Task)
-                for (Integer candidateChild : candidateChildren) {
-                    // revert changes made to children
-                    searchState.inDegrees[candidateChild]++;
-                    if (searchState.inDegrees[candidateChild] == 1) {
-                        searchState.candidateTasks.removeLast();
-                    }
+                // Update state (Location 2: Processors)
+                int prevFinishTime = searchState.processorFinishTimes[candidateProcessor];
+                int oldPreviousProcessor = searchState.previousProcessor;
+                boolean oldChildAddedLastRound = searchState.childAddedLastRound;
+                searchState.previousProcessor = candidateProcessor;
+                searchState.childAddedLastRound = childAddedThisRound;
+                searchState.processorFinishTimes[candidateProcessor] = earliestStartTimeOnCurrentProcessor + taskGraph.getDuration(candidateTask);
+                searchState.scheduledOn[candidateTask] = candidateProcessor;
+                searchState.taskStartTimes[candidateTask] = earliestStartTimeOnCurrentProcessor;
+                searchState.scheduleHash.toggle(candidateTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
+
+                if (isForking) {
+                    executableList.add(new RecursiveSearch(searchState.getDeepCopy(), depth + 1));
+                } else {
+                    // The child may reorder its candidate tasks, but they stay the same set
+                    search(searchState, depth + 1);
+                    searchState.numCandidates = nextCandidateCount;
                 }
-                searchState.remainingDuration += taskGraph.getDuration(candidateTask);
-                searchState.candidateTasks.add(candidateTask);
-                searchState.taskStartTimes[candidateTask] = -1;
+
+                // Backtrack state (Location 2: Processors)
+                searchState.scheduleHash.toggle(candidateTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
+                searchState.processorFinishTimes[candidateProcessor] = prevFinishTime;
+                searchState.previousProcessor = oldPreviousProcessor;
+                searchState.childAddedLastRound = oldChildAddedLastRound;
+
+            }
+
+            // Backtrack state (Location 1: Candidate data.Task)
+            for (int j = 0; j < taskGraph.getNumChildren(candidateTask); j++) {
+                // revert changes made to children
+                searchState.inDegrees[taskGraph.childAt(candidateTask, j)]++;
+            }
+            searchState.remainingDuration += taskGraph.getDuration(candidateTask);
+            searchState.candidateTasks = candidateTasks;
+            searchState.numCandidates = candidateCount;
+            searchState.taskStartTimes[candidateTask] = -1;
+            if (isForking && !executableList.isEmpty()) {
                 ForkJoinTask.invokeAll(executableList);
             }
         }
-
     }
 
     /**
-     * Helper method to create the output data.Schedule.
+     * Decides whether the children of a state are forked as new tasks. Forking copies the state for every child and
+     * adds a task to the pool, which is only worth it when another thread can pick the task up. So we fork near the
+     * root to spread the work over the threads, and further down only when the queue of this thread is empty, which
+     * means the other threads may run out of work. States close to the leaves are always searched in place.
      *
-     * @return Optimal data.Schedule.
+     * @param depth number of tasks scheduled in the state.
+     * @return true if the children should be forked.
      */
-    private Schedule createOutput() {
-        Task[] optimalSchedule = new Task[numTasks];
-        for (int i = 0; i < numTasks; i++) {
-            Task t = new Task(bestStartTime[i],
-                    bestStartTime[i] + taskGraph.getDuration(i), bestScheduledOn[i]);
-            optimalSchedule[i] = t;
+    private boolean shouldFork(int depth) {
+        if (depth < FORK_DEPTH) {
+            return true;
         }
-
-        return new Schedule(optimalSchedule, bestFinishTime);
+        if (numTasks - depth <= IN_PLACE_TASKS) {
+            return false;
+        }
+        return ForkJoinTask.getSurplusQueuedTaskCount() <= 0;
     }
 
     /**
@@ -281,19 +311,20 @@ public class SolutionParallel extends Solution {
      * Helper method to initialize variables used by all threads.
      */
     private void initializeGlobalVars() {
-        maxLengthToExitNode = PreProcessor.maxLengthToExitNode(taskGraph);
+        maxLengthToExitNode = PreProcessor.getTaskLevels(taskGraph).getBLevels();
         nodePriorities = maxLengthToExitNode;
         numTasks = taskGraph.getNumberOfTasks();
-        equivalentNodesList = PreProcessor.getNodeEquivalence(taskGraph);
-        bestStartTime = new int[numTasks];
-        bestScheduledOn = new int[numTasks];
+        initializeEquivalenceClasses();
+        initializeConcurrentSeenSchedules();
+        getLowerBound();
     }
 
     /**
      * Helper method to create the initial state on which the algorithm runs.
      */
     private SearchState initializeState() {
-        LinkedList<Integer> candidateTasks = new LinkedList<>();
+        int[] candidateTasks = new int[numTasks];
+        int numCandidates = 0;
         int[] inDegrees = new int[numTasks];
         int[] taskStartTimes = new int[numTasks];
         Arrays.fill(taskStartTimes, -1);
@@ -303,12 +334,12 @@ public class SolutionParallel extends Solution {
         for (int i = 0; i < numTasks; i++) {
             // calculate remaining duration of tasks to be scheduled
             remainingDuration += taskGraph.getDuration(i);
-            inDegrees[i] = taskGraph.getParentsList(i).size();
+            inDegrees[i] = taskGraph.getNumParents(i);
             if (inDegrees[i] == 0) {
-                candidateTasks.add(i);
+                candidateTasks[numCandidates++] = i;
             }
         }
-        return new SearchState(candidateTasks, inDegrees, taskStartTimes,
-                scheduledOn, processorFinishTimes, remainingDuration, -1, false);
+        return new SearchState(candidateTasks, numCandidates, inDegrees, taskStartTimes, scheduledOn, processorFinishTimes,
+                remainingDuration, new PartialScheduleHasher(numTasks, numProcessors), -1, false);
     }
 }
\ No newline at end of file
@@ -1,9 +1,10 @@
 package solution;
 
 import data.Schedule;
-import data.Task;
 import data.TaskGraph;
-import solution.helpers.PartialScheduleHashGenerator;
+import solution.helpers.Greedy;
+import solution.helpers.PartialScheduleHasher;
+import solution.SearchStatistics.Counter;
 import solution.helpers.PreProcessor;
 
 import java.util.*;
@@ -14,9 +15,32 @@ public class SolutionSequential extends Solution {
     private int[] scheduledOn;  // scheduledOn[i] => the processor task i is scheduled on
     private int[] processorFinishTimes; // processorFinishTimes[i] => finishing time of the last task scheduled on processor i
     private int remainingDuration = 0; // total duration of remaining tasks to be scheduled (used for pruning)
+    private PartialScheduleHasher scheduleHash; // hash of the tasks scheduled so far
     private int previousProcessor = -1;
     private boolean childAddedLastRound = false;
 
+    // The candidate tasks of every partial schedule on the current search path, so that the search does not need to
+    // create any objects. The partial schedule with d tasks scheduled keeps its candidate tasks in
+    // candidateBuffers[d][0..numCandidates[d]).
+    private int[][] candidateBuffers;
+    private int[] numCandidates;
+    private boolean[][] seenClassBuffers; // seenClassBuffers[d][c] => equivalence class c was tried at depth d
+    private int[] ftoBuffer; // candidate tasks being sorted into Fixed Task Order
+
+    // Partial schedules with fewer than rolloutDepth tasks scheduled are completed greedily, so that good schedules
+    // are found before the search reaches a leaf. Only one in every rolloutEvery of them is, to bound the cost.
+    private int rolloutDepth = 0;
+    private int rolloutEvery = 1;
+    private long rolloutCandidates; // partial schedules that could have been completed so far
+    private final Greedy greedy = new Greedy();
+    private int[] rolloutStartTimes;
+    private int[] rolloutScheduledOn;
+    private int[] rolloutProcessorFinishTimes;
+
+    // The search stops after stateLimit partial schedules, and returns the best schedule found so far
+    private long stateLimit = Long.MAX_VALUE;
+    private long numStates; // partial schedules searched so far
+
     /**
      * @param taskGraph      Graph containing tasks as nodes and their dependencies as edges.
      * @param numProcessors  Number of processors to schedule the tasks on.
@@ -25,13 +49,41 @@ public class SolutionSequential extends Solution {
         super(taskGraph, numProcessors);
     }
 
+    /**
+     * @param rolloutDepth partial schedules with fewer tasks scheduled are completed greedily, 0 if none are.
+     */
+    public void setRolloutDepth(int rolloutDepth) {
+        this.rolloutDepth = rolloutDepth;
+    }
+
+    /**
+     * @param rolloutEvery only one in every this many partial schedules that could be completed greedily is.
+     */
+    public void setRolloutEvery(int rolloutEvery) {
+        this.rolloutEvery = rolloutEvery;
+    }
+
+    /**
+     * @param stateLimit number of partial schedules the search expands at most.
+     */
+    public void setStateLimit(long stateLimit) {
+        this.stateLimit = stateLimit;
+    }
+
+    /**
+     * @return true if the search stopped at the state limit, so the schedule returned by run may not be optimal.
+     */
+    public boolean isStateLimitReached() {
+        return numStates >= stateLimit;
+    }
+
     /**
      * Creates an optimal scheduling of tasks on specified number of processors.
      * @return optimal schedule found by the run method.
      */
     public Schedule run() {
-        LinkedList<Integer> candidateTasks = initialize(taskGraph, numProcessors);
-        recursiveSearch(candidateTasks);
+        initialize(taskGraph, numProcessors);
+        recursiveSearch(0);
         setDone();
         return createOutput();
     }
@@ -39,30 +91,40 @@ public class SolutionSequential extends Solution {
     /**
      * This method recursively tries to schedule tasks on processors.
      *
-     * @param candidateTasks a list of tasks that are currently available to be scheduled
+     * @param depth number of tasks scheduled. The tasks that are currently available to be scheduled are in
+     *              candidateBuffers[depth].
      */
-    private void recursiveSearch(LinkedList<Integer> candidateTasks) {
+    private void recursiveSearch(int depth) {
+        if (isLowerBoundMet() || isStateLimitReached()) {
+            return;
+        }
+        numStates++;
         updateStateCount();
+        int[] candidateTasks = candidateBuffers[depth];
+        int candidateCount = numCandidates[depth];
 
         // Base case is when queue is empty, i.e. all tasks scheduled.
-        if (candidateTasks.isEmpty()) {
+        if (candidateCount == 0) {
             updateBestSchedule();
             return;
         }
 
-        // Create a hash code for our partial schedule to check whether we have examined an equivalent schedule before
+        // Check whether we have examined an equivalent schedule before
         // If we have seen an equivalent schedule we do not need to proceed
-        int hashCode = PartialScheduleHashGenerator.generateHashCode(taskStartTimes, scheduledOn, numProcessors);
-        if (seenSchedules.contains(hashCode)) {
+        if (!seenSchedules.add(scheduleHash.getHash(), depth, taskStartTimes, scheduledOn)) {
+            statistics.increment(Counter.DUPLICATES);
+            return;
+        }
+
+        if (depth < rolloutDepth && rolloutCandidates++ % rolloutEvery == 0) {
+            rollout();
+        }
+
+        // Find if we can complete the tasks in Fixed data.Task Order (FTO)
+        if (toFTOList(candidateTasks, candidateCount)) {
+            statistics.increment(Counter.FTO_ACTIVATIONS);
+            searchFTOSchedule(depth);
             return;
-        } else {
-            // Find if we can complete the tasks in Fixed data.Task Order (FTO)
-            LinkedList<Integer> ftoSorted = toFTOList(new LinkedList<>(candidateTasks));
-            if (ftoSorted != null) {
-                getFTOSchedule(ftoSorted);
-                return;
-            }
-            seenSchedules.add(hashCode);
         }
 
         // Information we need about the current schedule
@@ -76,39 +138,51 @@ public class SolutionSequential extends Solution {
             latestProcessorFinishTime = Math.max(processorFinishTimes[l], latestProcessorFinishTime);
         }
 
-        int longestCriticalPath = calculateLongestCriticalPath(candidateTasks);
+        int longestCriticalPath = calculateLongestCriticalPath(candidateTasks, candidateCount);
 
         // Iterate through tasks
-        candidateTasks.sort(Comparator.comparingInt(a -> nodePriorities[a]));
-        HashSet<Integer> seenTasks = new HashSet<>();
-        for (int i = 0; i < candidateTasks.size(); i++) {
-            int candidateTask = candidateTasks.remove();
+        sortByPriority(candidateTasks, candidateCount);
+        boolean[] seenClasses = seenClassBuffers[depth];
+        for (int i = 0; i < candidateCount; i++) {
+            seenClasses[equivalenceClass[candidateTasks[i]]] = false;
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            int candidateTask = candidateTasks[i];
 
             // check for node duplication
-            if (seenTasks.contains(candidateTask)) {
-                candidateTasks.add(candidateTask);
+            if (seenClasses[equivalenceClass[candidateTask]]) {
+                statistics.increment(Counter.PRUNED_EQUIVALENT_TASKS);
                 continue;
             } else {
-                ArrayList<Integer> equivalentNodes = equivalentNodesList[candidateTask];
-                seenTasks.addAll(equivalentNodes);
+                seenClasses[equivalenceClass[candidateTask]] = true;
             }
 
             // if the our schedule can never become an optimal schedule, then there is no need to continue trying
             // this combination.
             if (!isPotentialOptimal(earliestProcessorFinishTime, loadBalancedRemainingTime, longestCriticalPath,
                     latestProcessorFinishTime)) {
-                candidateTasks.add(candidateTask);
                 continue;
             }
 
+            // The candidate tasks of the next partial schedule are the other candidate tasks, starting after this one,
+            // followed by the children that this task frees.
+            int[] nextCandidateTasks = candidateBuffers[depth + 1];
+            int nextCandidateCount = 0;
+            for (int j = i + 1; j < candidateCount; j++) {
+                nextCandidateTasks[nextCandidateCount++] = candidateTasks[j];
+            }
+            for (int j = 0; j < i; j++) {
+                nextCandidateTasks[nextCandidateCount++] = candidateTasks[j];
+            }
+
             // Update state (Location 1: Candidate data.Task)
             remainingDuration -= taskGraph.getDuration(candidateTask);
             boolean childAddedThisRound = false;
-            List<Integer> candidateChildren = taskGraph.getChildrenList(candidateTask);
-            for (Integer candidateChild : candidateChildren) {
+            for (int j = 0; j < taskGraph.getNumChildren(candidateTask); j++) {
+                int candidateChild = taskGraph.childAt(candidateTask, j);
                 inDegrees[candidateChild]--;
                 if (inDegrees[candidateChild] == 0) {
-                    candidateTasks.add(candidateChild);
+                    nextCandidateTasks[nextCandidateCount++] = candidateChild;
                     childAddedThisRound = true;
                 }
             }
@@ -117,9 +191,9 @@ public class SolutionSequential extends Solution {
             int maxDataArrival = 0;
             int processorCausingMaxDataArrival = 0;
             int secondMaxDataArrival = 0;
-            List<Integer> parents = taskGraph.getParentsList(candidateTask);
-            for (int parent : parents) {
-                int dataArrival = taskStartTimes[parent] + taskGraph.getDuration(parent) + taskGraph.getCommCost(parent, candidateTask);
+            for (int j = 0; j < taskGraph.getNumParents(candidateTask); j++) {
+                int parent = taskGraph.parentAt(candidateTask, j);
+                int dataArrival = taskStartTimes[parent] + taskGraph.getDuration(parent) + taskGraph.parentCommCostAt(candidateTask, j);
                 if (dataArrival >= maxDataArrival) {
                     if (scheduledOn[parent] != processorCausingMaxDataArrival) {
                         secondMaxDataArrival = maxDataArrival;
@@ -134,15 +208,13 @@ public class SolutionSequential extends Solution {
                 }
             }
 
-
-            // Deep copy of candidateList is used in next recursive iteration
-            LinkedList<Integer> nextCandidateList = new LinkedList<Integer>(candidateTasks);
             boolean hasBeenScheduledAtStart = false;
             for (int candidateProcessor = 0; candidateProcessor < numProcessors; candidateProcessor++) { // Iterate through processors
                 // Avoid processor isomorphism
                 if (processorFinishTimes[candidateProcessor] == 0) {
                     if (hasBeenScheduledAtStart) {
                         // Skip duplicated search space
+                        statistics.increment(Counter.PRUNED_PROCESSOR_ISOMORPHISM);
                         continue;
                     } else {
                         hasBeenScheduledAtStart = true;
@@ -151,6 +223,7 @@ public class SolutionSequential extends Solution {
 
                 // Partial duplicate avoidance
                 if(!childAddedLastRound && candidateProcessor < previousProcessor){
+                    statistics.increment(Counter.PRUNED_PARTIAL_DUPLICATES);
                     continue;
                 }
 
@@ -163,7 +236,8 @@ public class SolutionSequential extends Solution {
                 }
 
                 // Pruning: tighter constraint now that we have selected the processor
-                if (earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[candidateTask] >= bestFinishTime) {
+                if (earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[candidateTask] >= incumbent.getFinishTime()) {
+                    statistics.increment(Counter.PRUNED_START_TIME);
                     continue;
                 }
 
@@ -177,25 +251,25 @@ public class SolutionSequential extends Solution {
                 processorFinishTimes[candidateProcessor] = earliestStartTimeOnCurrentProcessor + taskGraph.getDuration(candidateTask);
                 scheduledOn[candidateTask] = candidateProcessor;
                 taskStartTimes[candidateTask] = earliestStartTimeOnCurrentProcessor;
+                scheduleHash.toggle(candidateTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
 
-                recursiveSearch(nextCandidateList);
+                // The next partial schedule may reorder its candidate tasks, but they stay the same set
+                numCandidates[depth + 1] = nextCandidateCount;
+                recursiveSearch(depth + 1);
 
                 // Backtrack state (Location 2: Processors)
+                scheduleHash.toggle(candidateTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
                 processorFinishTimes[candidateProcessor] = prevFinishTime;
                 previousProcessor = oldPreviousProcessor;
                 childAddedLastRound = oldChildAddedLastRound;
             }
 
             // Backtrack state (Location 1: Candidate Task)
-            for (Integer candidateChild : candidateChildren) {
+            for (int j = 0; j < taskGraph.getNumChildren(candidateTask); j++) {
                 // revert changes made to children
-                inDegrees[candidateChild]++;
-                if (inDegrees[candidateChild] == 1) {
-                    candidateTasks.removeLast();
-                }
+                inDegrees[taskGraph.childAt(candidateTask, j)]++;
             }
             remainingDuration += taskGraph.getDuration(candidateTask);
-            candidateTasks.add(candidateTask);
             taskStartTimes[candidateTask] = -1;
         }
     }
@@ -203,51 +277,41 @@ public class SolutionSequential extends Solution {
     /**
      * Helper method to initialize all the fields required for the solution.
      */
-    private LinkedList<Integer> initialize(TaskGraph taskGraph, int numProcessors) {
+    private void initialize(TaskGraph taskGraph, int numProcessors) {
         this.taskGraph = taskGraph;
         this.numProcessors = numProcessors;
 
-        maxLengthToExitNode = PreProcessor.maxLengthToExitNode(taskGraph);
+        maxLengthToExitNode = PreProcessor.getTaskLevels(taskGraph).getBLevels();
         numTasks = taskGraph.getNumberOfTasks();
 
         nodePriorities = maxLengthToExitNode;
-        equivalentNodesList = PreProcessor.getNodeEquivalence(taskGraph);
+        initializeEquivalenceClasses();
+        getLowerBound();
 
         inDegrees = new int[numTasks];
-        bestStartTime = new int[numTasks];
-        bestScheduledOn = new int[numTasks];
         processorFinishTimes = new int[numProcessors];
         taskStartTimes = new int[numTasks];
         Arrays.fill(taskStartTimes, -1);
         scheduledOn = new int[numTasks];
-        LinkedList<Integer> candidateTasks = new LinkedList<>();
+        scheduleHash = new PartialScheduleHasher(numTasks, numProcessors);
+        initializeSeenSchedules();
+
+        candidateBuffers = new int[numTasks + 1][numTasks];
+        numCandidates = new int[numTasks + 1];
+        seenClassBuffers = new boolean[numTasks + 1][numTasks];
+        ftoBuffer = new int[numTasks];
+        rolloutStartTimes = new int[numTasks];
+        rolloutScheduledOn = new int[numTasks];
+        rolloutProcessorFinishTimes = new int[numProcessors];
 
         for (int i = 0; i < numTasks; i++) {
             // calculate remaining duration of tasks to be scheduled
             remainingDuration += taskGraph.getDuration(i);
-            inDegrees[i] = taskGraph.getParentsList(i).size();
+            inDegrees[i] = taskGraph.getNumParents(i);
             if (inDegrees[i] == 0) {
-                candidateTasks.add(i);
+                candidateBuffers[0][numCandidates[0]++] = i;
             }
         }
-        return candidateTasks;
-
-    }
-
-    /**
-     * Helper method to create the output data.Schedule.
-     *
-     * @return Optimal data.Schedule.
-     */
-    private Schedule createOutput() {
-        Task[] optimalSchedule = new Task[numTasks];
-        for (int i = 0; i < numTasks; i++) {
-            Task t = new Task(bestStartTime[i],
-                    bestStartTime[i] + taskGraph.getDuration(i), bestScheduledOn[i]);
-            optimalSchedule[i] = t;
-        }
-
-        return new Schedule(optimalSchedule, bestFinishTime);
     }
 
     /**
@@ -265,141 +329,173 @@ public class SolutionSequential extends Solution {
     }
 
     /**
-     * Sorts the list of free tasks into Fixed data.Task Order if possible.
-     * @param candidateTasks list of free tasks yet to be scheduled.
-     * @return null if no FTO found, otherwise the FTO.
+     * Sorts the list of free tasks into Fixed data.Task Order if possible. The tasks are only reordered if they
+     * have a FTO.
+     * @param candidateTasks array of free tasks yet to be scheduled.
+     * @param candidateCount number of free tasks at the start of the array.
+     * @return false if no FTO found, otherwise true, and the tasks are in FTO.
      */
-    private LinkedList<Integer> toFTOList(LinkedList<Integer> candidateTasks) {
+    private boolean toFTOList(int[] candidateTasks, int candidateCount) {
         int child = -1;
         int parentProcessor = -1;
 
-        for (int task : candidateTasks) {
+        for (int i = 0; i < candidateCount; i++) {
+            int task = candidateTasks[i];
             // To be an FTO, every node must have at most one parent and at most one child
-            if (taskGraph.getParentsList(task).size() > 1 || taskGraph.getChildrenList(task).size() > 1) {
-                return null;
+            if (taskGraph.getNumParents(task) > 1 || taskGraph.getNumChildren(task) > 1) {
+                return false;
             }
 
             // Every node must have the same child IF they have a child
-            if (taskGraph.getChildrenList(task).size() > 0) {
-                int taskChild = taskGraph.getChildrenList(task).get(0);
+            if (taskGraph.getNumChildren(task) > 0) {
+                int taskChild = taskGraph.childAt(task, 0);
                 if (child == -1) {
                     child = taskChild;
                 } else if (child != taskChild) {
-                    return null;
+                    return false;
                 }
             }
 
             // every node must have their parents on the same processor IF they have a parent.
-            if (taskGraph.getParentsList(task).size() > 0) {
-                int taskParent = taskGraph.getParentsList(task).get(0);
+            if (taskGraph.getNumParents(task) > 0) {
+                int taskParent = taskGraph.parentAt(task, 0);
                 int taskParentProcessor = scheduledOn[taskParent];
                 if (parentProcessor == -1) {
                     parentProcessor = taskParentProcessor;
                 } else if (parentProcessor != taskParentProcessor) {
-                    return null;
+                    return false;
                 }
             }
         }
 
         // sort by non-decreasing data ready time, i.e. finish time of parent + weight of edge
-        sortByDataReadyTime(candidateTasks);
+        System.arraycopy(candidateTasks, 0, ftoBuffer, 0, candidateCount);
+        sortByDataReadyTime(ftoBuffer, candidateCount);
 
         // verify if the candidate tasks are ordered by out edge cost in non-increasing order,
         // if not we do not have a FTO.
         int prevOutEdgeCost = Integer.MAX_VALUE;
-        for (int task : candidateTasks) {
+        for (int i = 0; i < candidateCount; i++) {
+            int task = ftoBuffer[i];
             int edgeCost;
-            if (taskGraph.getChildrenList(task).isEmpty()) {
+            if (taskGraph.getNumChildren(task) == 0) {
                 // there is no out edge, cost is 0
                 edgeCost = 0;
             } else {
-                int taskChild = taskGraph.getChildrenList(task).get(0);
-                edgeCost = taskGraph.getCommCost(task, taskChild);
+                edgeCost = taskGraph.childCommCostAt(task, 0);
             }
 
             // if our current edge is larger than the previous edge, we don't have a FTO.
             if (edgeCost > prevOutEdgeCost) {
-                return null;
+                return false;
             } else {
                 prevOutEdgeCost = edgeCost;
             }
         }
 
         // we have a FTO!
-        return candidateTasks;
+        System.arraycopy(ftoBuffer, 0, candidateTasks, 0, candidateCount);
+        return true;
     }
 
 
     /**
      * Sorts the list of candidate tasks by non-decreasing data ready time. When two data ready times
-     * are equal, we use the non-increasing out-edge cost to break this tie.
+     * are equal, we use the non-increasing out-edge cost to break this tie. The sort is stable.
      * Data ready time = finish time of parent + communication cost between parent and task.
      * Out-edge cost = communication cost between task and child.
-     * @param candidateTasks the list of free tasks that are still unscheduled.
+     * @param candidateTasks array of the free tasks that are still unscheduled.
+     * @param candidateCount number of free tasks at the start of the array.
      */
-    private void sortByDataReadyTime(List<Integer> candidateTasks) {
-        candidateTasks.sort((task1, task2) -> {
-            int task1DataReadyTime = 0;
-            int task2DataReadyTime = 0;
-
-            if (!taskGraph.getParentsList(task1).isEmpty()) {
-                int parent = taskGraph.getParentsList(task1).get(0);
-                int commCost = taskGraph.getCommCost(parent, task1);
-                task1DataReadyTime = taskStartTimes[parent] + taskGraph.getDuration(parent) + commCost;
+    private void sortByDataReadyTime(int[] candidateTasks, int candidateCount) {
+        for (int i = 1; i < candidateCount; i++) {
+            int task = candidateTasks[i];
+            int j = i - 1;
+            while (j >= 0 && compareDataReadyTime(candidateTasks[j], task) > 0) {
+                candidateTasks[j + 1] = candidateTasks[j];
+                j--;
             }
+            candidateTasks[j + 1] = task;
+        }
+    }
 
-            if (!taskGraph.getParentsList(task2).isEmpty()) {
-                int parent = taskGraph.getParentsList(task2).get(0);
-                int commCost = taskGraph.getCommCost(parent, task2);
-                task2DataReadyTime = taskStartTimes[parent] + taskGraph.getDuration(parent) + commCost;
-            }
+    /**
+     * Compares two free tasks by data ready time, then by non-increasing out-edge cost.
+     * @return negative if task1 goes first, positive if task2 goes first, 0 if they are equal.
+     */
+    private int compareDataReadyTime(int task1, int task2) {
+        int task1DataReadyTime = 0;
+        int task2DataReadyTime = 0;
+
+        if (taskGraph.getNumParents(task1) > 0) {
+            int parent = taskGraph.parentAt(task1, 0);
+            int commCost = taskGraph.parentCommCostAt(task1, 0);
+            task1DataReadyTime = taskStartTimes[parent] + taskGraph.getDuration(parent) + commCost;
+        }
 
-            if (task1DataReadyTime < task2DataReadyTime) {
-                return -1;
-            }
-            if (task1DataReadyTime > task2DataReadyTime) {
-                return 1;
-            }
+        if (taskGraph.getNumParents(task2) > 0) {
+            int parent = taskGraph.parentAt(task2, 0);
+            int commCost = taskGraph.parentCommCostAt(task2, 0);
+            task2DataReadyTime = taskStartTimes[parent] + taskGraph.getDuration(parent) + commCost;
+        }
 
-            // Data ready times are equal, break the tie using the out-edge cost
-            int task1OutEdgeCost = 0;
-            int task2OutEdgeCost = 0;
-            if (!taskGraph.getChildrenList(task1).isEmpty()) {
-                int child = taskGraph.getChildrenList(task1).get(0);
-                task1OutEdgeCost = taskGraph.getCommCost(task1, child);
-            }
-            if (!taskGraph.getChildrenList(task2).isEmpty()) {
-                int child = taskGraph.getChildrenList(task2).get(0);
-                task2OutEdgeCost = taskGraph.getCommCost(task2, child);
-            }
+        if (task1DataReadyTime < task2DataReadyTime) {
+            return -1;
+        }
+        if (task1DataReadyTime > task2DataReadyTime) {
+            return 1;
+        }
+
+        // Data ready times are equal, break the tie using the out-edge cost
+        int task1OutEdgeCost = 0;
+        int task2OutEdgeCost = 0;
+        if (taskGraph.getNumChildren(task1) > 0) {
+            task1OutEdgeCost = taskGraph.childCommCostAt(task1, 0);
+        }
+        if (taskGraph.getNumChildren(task2) > 0) {
+            task2OutEdgeCost = taskGraph.childCommCostAt(task2, 0);
+        }
 
-            return Integer.compare(task2OutEdgeCost, task1OutEdgeCost);
-        });
+        return Integer.compare(task2OutEdgeCost, task1OutEdgeCost);
     }
 
     /**
      * Given a Fixed data.Task Order sorted list, we know that we can safely schedule the next task.
      * This method will schedule in FTO order.
-     * @param ftoSortedList the FTO sorted list.
+     * @param depth number of tasks scheduled. The FTO sorted list is in candidateBuffers[depth].
      */
-    private void getFTOSchedule(LinkedList<Integer> ftoSortedList) {
+    private void getFTOSchedule(int depth) {
+        if (isLowerBoundMet() || isStateLimitReached()) {
+            return;
+        }
+        numStates++;
         updateStateCount();
 
         // Base case
-        if (ftoSortedList.isEmpty()) {
+        if (numCandidates[depth] == 0) {
             updateBestSchedule();
             return;
         }
 
-        // Create a hash code for our partial schedule to check whether we have examined an equivalent schedule before
+        // Check whether we have examined an equivalent schedule before
         // If we have seen an equivalent schedule we do not need to proceed
-        int hashCode = PartialScheduleHashGenerator.generateHashCode(taskStartTimes, scheduledOn, numProcessors);
-        if (seenSchedules.contains(hashCode)) {
+        if (!seenSchedules.add(scheduleHash.getHash(), depth, taskStartTimes, scheduledOn)) {
+            statistics.increment(Counter.DUPLICATES);
             return;
-        } else {
-            seenSchedules.add(hashCode);
         }
 
+        searchFTOSchedule(depth);
+    }
+
+    /**
+     * Schedules the first task of a Fixed data.Task Order sorted list on every processor, and continues the search
+     * from each of the resulting partial schedules. The current partial schedule must already be in seenSchedules.
+     * @param depth number of tasks scheduled. The FTO sorted list is in candidateBuffers[depth].
+     */
+    private void searchFTOSchedule(int depth) {
+        int[] ftoSortedList = candidateBuffers[depth];
+        int ftoCount = numCandidates[depth];
+
         // Information we need about the current schedule
         // minimal remaining time IF all remaining tasks are evenly distributed amongst processors.
         int loadBalancedRemainingTime = (int) Math.ceil(remainingDuration / (double) numProcessors);
@@ -411,13 +507,7 @@ public class SolutionSequential extends Solution {
             latestProcessorFinishTime = Math.max(processorFinishTimes[l], latestProcessorFinishTime);
         }
 
-        int longestCriticalPath = 0;
-        for (int task : ftoSortedList) {
-            int criticalPath = maxLengthToExitNode[task];
-            if (criticalPath > longestCriticalPath) {
-                longestCriticalPath = criticalPath;
-            }
-        }
+        int longestCriticalPath = calculateLongestCriticalPath(ftoSortedList, ftoCount);
 
         // Exit conditions 1
         if (!isPotentialOptimal(earliestProcessorFinishTime, loadBalancedRemainingTime, longestCriticalPath,
@@ -426,17 +516,20 @@ public class SolutionSequential extends Solution {
         }
 
         // Update the state: Location 1
-        LinkedList<Integer> duplicate = new LinkedList<>(ftoSortedList);
-        int firstTask = duplicate.poll();
+        // The rest of the FTO sorted list is used by the next partial schedule
+        int firstTask = ftoSortedList[0];
+        int[] duplicate = candidateBuffers[depth + 1];
+        int duplicateCount = ftoCount - 1;
+        System.arraycopy(ftoSortedList, 1, duplicate, 0, duplicateCount);
         remainingDuration -= taskGraph.getDuration(firstTask);
 
 
         boolean taskChildAdded = false;
-        if (!taskGraph.getChildrenList(firstTask).isEmpty()) {
-            int child = taskGraph.getChildrenList(firstTask).get(0);
+        if (taskGraph.getNumChildren(firstTask) > 0) {
+            int child = taskGraph.childAt(firstTask, 0);
             inDegrees[child]--;
             if (inDegrees[child] == 0) {
-                duplicate.add(child);
+                duplicate[duplicateCount++] = child;
                 taskChildAdded = true;
             }
         }
@@ -448,6 +541,7 @@ public class SolutionSequential extends Solution {
             if (processorFinishTimes[candidateProcessor] == 0) {
                 if (hasBeenScheduledAtStart) {
                     // Skip duplicated search space
+                    statistics.increment(Counter.PRUNED_PROCESSOR_ISOMORPHISM);
                     continue;
                 } else {
                     hasBeenScheduledAtStart = true;
@@ -459,7 +553,8 @@ public class SolutionSequential extends Solution {
                     firstTask);
 
             // Exit conditions 2: tighter constraint now that we have selected the processor
-            if (earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[firstTask] >= bestFinishTime) {
+            if (earliestStartTimeOnCurrentProcessor + maxLengthToExitNode[firstTask] >= incumbent.getFinishTime()) {
+                statistics.increment(Counter.PRUNED_START_TIME);
                 continue;
             }
 
@@ -473,28 +568,45 @@ public class SolutionSequential extends Solution {
             processorFinishTimes[candidateProcessor] = earliestStartTimeOnCurrentProcessor + taskGraph.getDuration(firstTask);
             scheduledOn[firstTask] = candidateProcessor;
             taskStartTimes[firstTask] = earliestStartTimeOnCurrentProcessor;
+            scheduleHash.toggle(firstTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
 
+            numCandidates[depth + 1] = duplicateCount;
             if (!taskChildAdded) {
                 // it remains a FTO, we don't have to check again
-                getFTOSchedule(duplicate);
+                getFTOSchedule(depth + 1);
             } else {
-                recursiveSearch(duplicate);
+                recursiveSearch(depth + 1);
             }
 
             // Backtrack: Location 2
+            scheduleHash.toggle(firstTask, candidateProcessor, earliestStartTimeOnCurrentProcessor);
             processorFinishTimes[candidateProcessor] = prevFinishTime;
             previousProcessor = oldPreviousProcessor;
             childAddedLastRound = oldChildAddedLastRound;
         }
         // Backtrack: Location 1
-        if(!taskGraph.getChildrenList(firstTask).isEmpty()) {
-            int child = taskGraph.getChildrenList(firstTask).get(0);
+        if(taskGraph.getNumChildren(firstTask) > 0) {
+            int child = taskGraph.childAt(firstTask, 0);
             inDegrees[child]++;
         }
         remainingDuration += taskGraph.getDuration(firstTask);
         taskStartTimes[firstTask] = -1;
     }
 
+    /**
+     * Completes the current partial schedule with the greedy list schedule in order of b-level, and offers the
+     * complete schedule to the incumbent. The partial schedule is not changed.
+     */
+    private void rollout() {
+        statistics.increment(Counter.ROLLOUTS);
+        System.arraycopy(taskStartTimes, 0, rolloutStartTimes, 0, numTasks);
+        System.arraycopy(scheduledOn, 0, rolloutScheduledOn, 0, numTasks);
+        System.arraycopy(processorFinishTimes, 0, rolloutProcessorFinishTimes, 0, numProcessors);
+        int finishTime = greedy.completeScheduleWithPriority(taskGraph, numProcessors, maxLengthToExitNode, true,
+                rolloutStartTimes, rolloutScheduledOn, rolloutProcessorFinishTimes);
+        incumbent.offer(finishTime, rolloutStartTimes, rolloutScheduledOn);
+    }
+
     /**
      * This method should be called when a schedule is created. We will update the best
      * schedule so far if the schedule is better.
@@ -502,28 +614,21 @@ public class SolutionSequential extends Solution {
     private void updateBestSchedule() {
         int finishTime = findMaxInArray(processorFinishTimes);
 
-        //If schedule time is better, update bestFinishTime and best schedule
-        if (finishTime < bestFinishTime) {
-            bestFinishTime = finishTime;
-
-            for (int i = 0; i < bestStartTime.length; i++) {
-                bestScheduledOn[i] = scheduledOn[i];
-                bestStartTime[i] = taskStartTimes[i];
-            }
-            updateBestScheduleOnVisual();
-        }
+        //If schedule time is better, update the best schedule
+        incumbent.offer(finishTime, taskStartTimes, scheduledOn);
     }
 
     /**
      * Calculates the longest critical path amongst all the candidate tasks. This is a lower
      * bound on the finish time of this schedule.
-     * @param candidateTasks the list of unscheduled free tasks.
+     * @param candidateTasks the array of unscheduled free tasks.
+     * @param candidateCount number of free tasks at the start of the array.
      * @return the longest critical path length.
      */
-    private int calculateLongestCriticalPath(List<Integer> candidateTasks) {
+    private int calculateLongestCriticalPath(int[] candidateTasks, int candidateCount) {
         int longestCriticalPath = 0;
-        for (int task : candidateTasks) {
-            int criticalPath = maxLengthToExitNode[task];
+        for (int i = 0; i < candidateCount; i++) {
+            int criticalPath = maxLengthToExitNode[candidateTasks[i]];
             if (criticalPath > longestCriticalPath) {
                 longestCriticalPath = criticalPath;
             }
@@ -532,25 +637,6 @@ public class SolutionSequential extends Solution {
         return longestCriticalPath;
     }
 
-    /**
-     * Checks if the current schedule can be optimal by comparing against the
-     * current best finishing time. If it takes longer or equal time, the current
-     * schedule can't be better than the current best schedule.
-     * @return
-     */
-    private boolean isPotentialOptimal(int earliestProcessorFinishTime, int loadBalancedRemainingTime,
-                                       int longestCriticalPath, int latestProcessorFinishTime) {
-        boolean loadBalancingConstraint = earliestProcessorFinishTime + loadBalancedRemainingTime >= bestFinishTime;
-        boolean criticalPathConstraint = earliestProcessorFinishTime + longestCriticalPath >= bestFinishTime;
-        boolean latestFinishTimeConstraint = latestProcessorFinishTime >= bestFinishTime;
-
-        if (loadBalancingConstraint || criticalPathConstraint || latestFinishTimeConstraint) {
-            return false;
-        }
-
-        return true;
-    }
-
     /**
      * Find the earliest start time on the current processor.
      * @param candidateProcessor the processor to check.
@@ -559,15 +645,15 @@ public class SolutionSequential extends Solution {
      */
     private int findEarliestStartTimeOnCurrentProcessor(int candidateProcessor, int candidateTask) {
         int earliestStartTimeOnCurrentProcessor = processorFinishTimes[candidateProcessor];
-        if (!taskGraph.getParentsList(candidateTask).isEmpty()) {
-            int parent = taskGraph.getParentsList(candidateTask).get(0);
+        if (taskGraph.getNumParents(candidateTask) > 0) {
+            int parent = taskGraph.parentAt(candidateTask, 0);
             if (scheduledOn[parent] == candidateProcessor) {
                 earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor,
                         taskStartTimes[parent] + taskGraph.getDuration(parent));
             } else {
                 earliestStartTimeOnCurrentProcessor = Math.max(earliestStartTimeOnCurrentProcessor,
                         taskStartTimes[parent] + taskGraph.getDuration(parent) +
-                                taskGraph.getCommCost(parent, candidateTask));
+                                taskGraph.parentCommCostAt(candidateTask, 0));
             }
         }
 
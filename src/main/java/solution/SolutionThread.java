@@ -4,10 +4,11 @@ import data.Schedule;
 import data.Task;
 import data.TaskGraph;
 import io.IOParser;
-import org.graphstream.graph.Graph;
 import solution.helpers.Greedy;
+import solution.helpers.InsertionScheduler;
 import solution.helpers.SequentialScheduler;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -20,23 +21,21 @@ public class SolutionThread extends Thread {
     private final TaskGraph taskGraph;
     private final int numProcessors;
     private final String outputFilePath;
-    private final Graph dotGraph;
+    private Incumbent.Snapshot shownBest; // best solution last shown by the poller
 
     /**
      * @param solution The solution that runs on this thread.
      * @param taskGraph The input graph on which the solution runs.
      * @param numProcessors The number of processors to schedule tasks on.
      * @param outputFilePath The path to the output file.
-     * @param dotGraph The input graph in dot format.
      */
-    public SolutionThread(Solution solution, TaskGraph taskGraph, int numProcessors, String outputFilePath, Graph dotGraph) {
+    public SolutionThread(Solution solution, TaskGraph taskGraph, int numProcessors, String outputFilePath) {
         super();
         this.solution = solution;
         solution.setVisual(); // flag the solution as visual
         this.taskGraph = taskGraph;
         this.numProcessors = numProcessors;
         this.outputFilePath = outputFilePath;
-        this.dotGraph = dotGraph;
     }
 
     public void run() {
@@ -53,45 +52,71 @@ public class SolutionThread extends Thread {
             // Run greedy algorithm to determine lower bound of optimal solution
             Greedy g = new Greedy();
             result = g.run(taskGraph, numProcessors);
+            Schedule insertionResult = new InsertionScheduler().run(taskGraph, numProcessors);
+            if (insertionResult.getFinishTime() < result.getFinishTime()) {
+                result = insertionResult;
+            }
             solution.setInitialSchedule(result);
 
-            // Run algorithm to find optimal schedule
+            // Run algorithm to find optimal schedule, unless the greedy schedule finishes at the lower bound
             long startTime = System.currentTimeMillis();
-            Schedule optimalResult = solution.run();
-
-            if (optimalResult.getFinishTime() < result.getFinishTime()) {
-                result = optimalResult;
+            if (result.getFinishTime() > solution.getLowerBound()) {
+                Schedule optimalResult = solution.run();
+
+                if (optimalResult.getFinishTime() < result.getFinishTime()) {
+                    result = optimalResult;
+                }
+            } else {
+                solution.setDone();
             }
 
             System.out.println("Program ran in: " + (System.currentTimeMillis() - startTime) + "ms");
             System.out.println("Best schedule has finishing time of " + result.getFinishTime());
         }
 
-        IOParser.write(outputFilePath, dotGraph, result);
+        IOParser.write(outputFilePath, taskGraph, result);
     }
 
     // Getter methods by which the poller of this thread can access the published results of the solution.
 
     public int getCurrentBest() {
-        return solution.bestFinishTime;
+        Incumbent.Snapshot best = shownBest != null ? shownBest : solution.getIncumbent().getSnapshot();
+        return best == null ? 0 : best.getFinishTime();
     }
 
     public long getStateCount() {
-        return solution.stateCount;
+        return solution.getStatistics().get(SearchStatistics.Counter.STATES_EXPANDED);
     }
 
     public boolean isDone() {
         return solution.isDone;
     }
 
+    /**
+     * @return The best schedule last reported by getBestChanged, as a list of tasks for each processor.
+     */
     public List<Task>[] getBestSchedule() {
-        return solution.bestSchedule;
+        List<Task>[] bestSchedule = new List[numProcessors];
+        for (int i = 0; i < numProcessors; i++) {
+            bestSchedule[i] = new ArrayList<>();
+        }
+        if (shownBest == null) {
+            return bestSchedule;
+        }
+
+        for (int i = 0; i < shownBest.getNumTasks(); i++) {
+            Task task = new Task(shownBest.getStartTime(i), taskGraph.getDuration(i), false);
+            bestSchedule[shownBest.getProcessor(i)].add(task);
+        }
+        return bestSchedule;
     }
 
-    // Check that the best solution has changed since last received.
+    // Check that the best solution has changed since last received. The current best and best schedule getters
+    // then both show this same snapshot of the best solution.
     public boolean getBestChanged() {
-        boolean hasChanged = solution.bestChanged;
-        solution.bestChanged = false;
+        Incumbent.Snapshot best = solution.getIncumbent().getSnapshot();
+        boolean hasChanged = best != shownBest;
+        shownBest = best;
         return hasChanged;
     }
 }
@@ -0,0 +1,107 @@
+package solution.helpers;
+
+/**
+ * The BoundedSeenScheduleSet class is a set of partial schedules that never uses more than a fixed amount of memory.
+ * All of its memory is allocated up front, and when it is full, partial schedules are evicted to make room for new
+ * ones. Eviction can never make the search incorrect: a partial schedule that has been evicted is simply searched
+ * again if it is reached a second time, so the search only loses some of its pruning.
+ *
+ * The table is split into buckets of WAYS slots, and a partial schedule can only be stored in the bucket given by its
+ * hash. The replacement policy prefers shallow partial schedules, as a duplicate close to the root prunes a much larger
+ * subtree than one close to the leaves. When a bucket is full, the deepest partial schedule in the first WAYS - 1 slots
+ * is replaced if the new partial schedule is not deeper. Otherwise the new partial schedule goes into the last slot of
+ * the bucket, which always holds the most recent partial schedule, so that deep duplicates found close together in the
+ * search are still detected.
+ *
+ * Like the unbounded sets, it can either store the packed encodings of the partial schedules for exact duplicate
+ * detection, or only their hashes.
+ */
+public class BoundedSeenScheduleSet extends SeenScheduleSet {
+    public static final long MIN_MEMORY_BUDGET = 1 << 10; // smallest memory budget, in bytes, that is accepted
+    private static final int WAYS = 4; // slots per bucket
+    private static final int MAX_SLOTS = 1 << 30; // largest array that can be allocated
+    private static final long EMPTY = 0; // hash of an empty slot
+    private static final long EMPTY_REPLACEMENT = 1; // used instead of a hash that is equal to EMPTY
+
+    private final PartialScheduleEncoder encoder; // null if only hashes are stored
+    private final int shift; // 64 - log2(number of buckets), used to turn a hash into a bucket, 64 for one bucket
+
+    private final long[] hashes; // hashes[i] => hash of the partial schedule in slot i, EMPTY if the slot is empty
+    private final short[] depths; // depths[i] => number of tasks scheduled in the partial schedule in slot i
+    private final long[] encodings; // encodings of the partial schedules, wordsPerSchedule longs for every slot
+
+    /**
+     * @param lossy true to only store hashes
+     * @param numTasks number of tasks
+     * @param numProcessors number of processors
+     * @param maxStartTime every task in a partial schedule added to the set must start before this time
+     * @param memoryBudget maximum number of bytes used by the table, at least MIN_MEMORY_BUDGET. The table always has
+     *                     at least one bucket.
+     */
+    public BoundedSeenScheduleSet(boolean lossy, int numTasks, int numProcessors, int maxStartTime,
+                                  long memoryBudget) {
+        encoder = lossy ? null : new PartialScheduleEncoder(numTasks, numProcessors, maxStartTime);
+        int wordsPerSchedule = lossy ? 0 : encoder.getWordsPerSchedule();
+
+        // Each slot takes a hash, a depth and an encoding
+        long bytesPerBucket = WAYS * (Long.BYTES + Short.BYTES + (long) wordsPerSchedule * Long.BYTES);
+        int numBuckets = 1;
+        while ((long) numBuckets * 2 * bytesPerBucket <= memoryBudget
+                && (long) numBuckets * 2 * WAYS * Math.max(1, wordsPerSchedule) <= MAX_SLOTS) {
+            numBuckets *= 2;
+        }
+        shift = 64 - Integer.numberOfTrailingZeros(numBuckets);
+
+        hashes = new long[numBuckets * WAYS];
+        depths = new short[numBuckets * WAYS];
+        encodings = new long[numBuckets * WAYS * wordsPerSchedule];
+    }
+
+    @Override
+    public boolean add(long hash, int depth, int[] taskStartTimes, int[] scheduledOn) {
+        if (hash == EMPTY) {
+            hash = EMPTY_REPLACEMENT;
+        }
+        if (encoder != null) {
+            encoder.encode(taskStartTimes, scheduledOn);
+        }
+
+        // Fibonacci hashing, so that the bucket does not depend on the same bits of the hash as the slot order. The shift
+        // is split in two, as Java shifts a long by the shift count modulo 64, and one bucket needs a shift of 64.
+        int firstSlot = (int) ((hash * 0x9E3779B97F4A7C15L) >>> 1 >>> (shift - 1)) * WAYS;
+        int lastSlot = firstSlot + WAYS - 1;
+        int emptySlot = -1;
+        int deepestSlot = firstSlot;
+        for (int slot = firstSlot; slot <= lastSlot; slot++) {
+            if (hashes[slot] == EMPTY) {
+                if (emptySlot == -1) {
+                    emptySlot = slot;
+                }
+                continue;
+            }
+            // Only compare the encodings when the hashes match
+            if (hashes[slot] == hash && (encoder == null || encoder.isEncodedIn(encodings, slot))) {
+                hits++;
+                return false;
+            }
+            if (slot != lastSlot && depths[slot] > depths[deepestSlot]) {
+                deepestSlot = slot;
+            }
+        }
+
+        misses++;
+        int slot;
+        if (emptySlot != -1) {
+            slot = emptySlot;
+        } else {
+            evictions++;
+            slot = depth <= depths[deepestSlot] ? deepestSlot : lastSlot;
+        }
+        hashes[slot] = hash;
+        depths[slot] = (short) Math.min(depth, Short.MAX_VALUE);
+        if (encoder != null) {
+            encoder.copyTo(encodings, slot);
+        }
+        return true;
+    }
+}
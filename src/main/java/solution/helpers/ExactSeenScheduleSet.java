@@ -0,0 +1,96 @@
+package solution.helpers;
+
+/**
+ * The ExactSeenScheduleSet class stores every partial schedule in a compact packed encoding (see
+ * PartialScheduleEncoder), so that two partial schedules are only treated as duplicates if they really are equivalent.
+ *
+ * The encodings are kept in an open addressing table together with the hashes of the partial schedules. When probing,
+ * the hashes are compared first, and the encodings are only compared when the hashes match.
+ */
+public class ExactSeenScheduleSet extends SeenScheduleSet {
+    private static final long EMPTY = 0; // hash of an empty slot
+    private static final long EMPTY_REPLACEMENT = 1; // used instead of a hash that is equal to EMPTY
+
+    private final PartialScheduleEncoder encoder;
+    private final int wordsPerSchedule; // longs used for the encoding of a partial schedule
+
+    private long[] hashes; // hashes[i] => hash of the partial schedule in slot i, EMPTY if the slot is empty
+    private long[] encodings; // encodings of the partial schedules, wordsPerSchedule longs for every slot
+    private int size = 0; // number of partial schedules in the set
+
+    /**
+     * @param numTasks number of tasks
+     * @param numProcessors number of processors
+     * @param maxStartTime every task in a partial schedule added to the set must start before this time
+     * @param expectedSize number of partial schedules the set should hold before it needs to grow
+     */
+    public ExactSeenScheduleSet(int numTasks, int numProcessors, int maxStartTime, int expectedSize) {
+        encoder = new PartialScheduleEncoder(numTasks, numProcessors, maxStartTime);
+        wordsPerSchedule = encoder.getWordsPerSchedule();
+
+        // Keep the table at most half full
+        int capacity = 16;
+        while (capacity < (1 << 30) / wordsPerSchedule && capacity / 2 < expectedSize) {
+            capacity *= 2;
+        }
+        hashes = new long[capacity];
+        encodings = new long[capacity * wordsPerSchedule];
+    }
+
+    @Override
+    public boolean add(long hash, int depth, int[] taskStartTimes, int[] scheduledOn) {
+        if (hash == EMPTY) {
+            hash = EMPTY_REPLACEMENT;
+        }
+        encoder.encode(taskStartTimes, scheduledOn);
+
+        int mask = hashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (hashes[slot] != EMPTY) {
+            // Only compare the encodings when the hashes match
+            if (hashes[slot] == hash && encoder.isEncodedIn(encodings, slot)) {
+                hits++;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        misses++;
+        hashes[slot] = hash;
+        encoder.copyTo(encodings, slot);
+        size++;
+        if (size > hashes.length / 4 * 3) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void resize() {
+        long[] oldHashes = hashes;
+        long[] oldEncodings = encodings;
+        // Allocate both tables before replacing either, so the set is still usable if we run out of memory
+        long[] newHashes = new long[oldHashes.length * 2];
+        long[] newEncodings = new long[newHashes.length * wordsPerSchedule];
+        hashes = newHashes;
+        encodings = newEncodings;
+
+        int mask = hashes.length - 1;
+        for (int oldSlot = 0; oldSlot < oldHashes.length; oldSlot++) {
+            long hash = oldHashes[oldSlot];
+            if (hash == EMPTY) {
+                continue;
+            }
+
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (hashes[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            System.arraycopy(oldEncodings, oldSlot * wordsPerSchedule, encodings, slot * wordsPerSchedule,
+                    wordsPerSchedule);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package solution.helpers;
+
+import data.Schedule;
+import data.Task;
+import data.TaskGraph;
+import solution.helpers.GraphClassifier.GraphClass;
+
+/**
+ * This class finds optimal schedules of independent tasks, fork graphs and join graphs, with a branch and bound search
+ * that only chooses a processor for every task, not an order.
+ *
+ * In a fork graph, the entry task starts at time 0 on processor 0. Every other task is released when the entry task
+ * has finished on processor 0, and its communication cost later on any other processor, and has no other constraint.
+ * Scheduling tasks with release times on one processor in order of release is optimal, so the tasks are given a
+ * processor in order of communication cost, and each is appended to its processor. Independent tasks are the same
+ * without an entry task. A join graph is a fork graph with its edges and time reversed: the fork graph schedule is
+ * mirrored, so the exit task finishes last and every other task finishes early enough for its data to arrive.
+ */
+public class ForkScheduler {
+    private static final int MAX_TASKS = 5_000; // larger graphs would make the candidate buffers too large
+    private static final long MAX_STATES = 10_000_000L; // states the search expands at most
+
+    private final TaskGraph taskGraph;
+    private final int numProcessors;
+    private final GraphClass graphClass;
+
+    private int rootTask = -1; // the entry task of a fork graph, or the exit task of a join graph
+    private int rootDuration;
+    private int[] tasks; // the tasks other than the root, in order of communication cost
+    private int[] commCosts; // commCosts[i] => communication cost between tasks[i] and the root
+    private int remainingDuration; // total duration of the tasks without a processor yet
+    private int firstSymmetricProcessor; // processors from this one on only differ by their finish times
+
+    private int[] processorFinishTimes;
+    private int[] startTimes; // startTimes[i] => start time of tasks[i]
+    private int[] processors; // processors[i] => processor of tasks[i]
+    private int[][] candidateProcessors; // candidateProcessors[i] => processors tried for tasks[i], earliest start first
+    private int[][] candidateStartTimeBuffers; // candidateStartTimeBuffers[i][j] => start time on candidate j
+    private int[] numCandidates; // numCandidates[i] => number of processors tried for tasks[i]
+    private int[] nextCandidates; // nextCandidates[i] => the next candidate tried for tasks[i]
+    private int[] previousFinishTimes; // previousFinishTimes[i] => finish time of processors[i] before tasks[i]
+    private int[] readyTimes; // times the next task could start on the processors, ascending
+    private int[] bestStartTimes;
+    private int[] bestProcessors;
+    private int bestFinishTime;
+    private long states;
+
+    /**
+     * @param taskGraph an independent, fork or join task graph, see GraphClassifier.
+     * @param numProcessors number of processors we have to schedule the tasks on.
+     * @param graphClass the shape of the task graph.
+     */
+    public ForkScheduler(TaskGraph taskGraph, int numProcessors, GraphClass graphClass) {
+        this.taskGraph = taskGraph;
+        this.numProcessors = numProcessors;
+        this.graphClass = graphClass;
+    }
+
+    /**
+     * @param taskGraph a task graph.
+     * @param graphClass the shape of the task graph.
+     * @return true if the task graph can be scheduled, which needs candidate buffers for every task.
+     */
+    public static boolean canSchedule(TaskGraph taskGraph, GraphClass graphClass) {
+        return (graphClass == GraphClass.INDEPENDENT || graphClass == GraphClass.FORK || graphClass == GraphClass.JOIN)
+                && taskGraph.getNumberOfTasks() <= MAX_TASKS;
+    }
+
+    /**
+     * Searches for a schedule that finishes before the initial schedule.
+     * @param initialSchedule a valid schedule of the task graph.
+     * @return the best schedule found, which is the initial schedule if none finishes earlier.
+     */
+    public Schedule run(Schedule initialSchedule) {
+        initialize();
+        bestFinishTime = initialSchedule.getFinishTime();
+        states = 0;
+        search();
+
+        if (bestStartTimes == null) {
+            return initialSchedule;
+        }
+        return createOutput();
+    }
+
+    /**
+     * @return true if the last schedule returned by run is optimal, which is when the search was not cut short.
+     */
+    public boolean isOptimal() {
+        return states < MAX_STATES;
+    }
+
+    private void initialize() {
+        int numTasks = taskGraph.getNumberOfTasks();
+        for (int task = 0; task < numTasks && graphClass != GraphClass.INDEPENDENT; task++) {
+            if (graphClass == GraphClass.FORK ? taskGraph.getNumParents(task) == 0
+                    : taskGraph.getNumChildren(task) == 0) {
+                rootTask = task;
+            }
+        }
+        rootDuration = rootTask == -1 ? 0 : taskGraph.getDuration(rootTask);
+
+        tasks = new int[rootTask == -1 ? numTasks : numTasks - 1];
+        commCosts = new int[tasks.length];
+        int numOtherTasks = 0;
+        remainingDuration = 0;
+        for (int task = 0; task < numTasks; task++) {
+            if (task == rootTask) {
+                continue;
+            }
+            int commCost = 0;
+            if (graphClass == GraphClass.FORK) {
+                commCost = taskGraph.parentCommCostAt(task, 0);
+            } else if (graphClass == GraphClass.JOIN) {
+                commCost = taskGraph.childCommCostAt(task, 0);
+            }
+            // Insertion sort by communication cost, and the longest task first when the costs are the same
+            int i = numOtherTasks++;
+            while (i > 0 && (commCosts[i - 1] > commCost || (commCosts[i - 1] == commCost
+                    && taskGraph.getDuration(tasks[i - 1]) < taskGraph.getDuration(task)))) {
+                tasks[i] = tasks[i - 1];
+                commCosts[i] = commCosts[i - 1];
+                i--;
+            }
+            tasks[i] = task;
+            commCosts[i] = commCost;
+            remainingDuration += taskGraph.getDuration(task);
+        }
+
+        firstSymmetricProcessor = rootTask == -1 ? 0 : 1;
+        processorFinishTimes = new int[numProcessors];
+        processorFinishTimes[0] = rootDuration;
+        startTimes = new int[tasks.length];
+        processors = new int[tasks.length];
+        candidateProcessors = new int[tasks.length][numProcessors];
+        candidateStartTimeBuffers = new int[tasks.length][numProcessors];
+        numCandidates = new int[tasks.length];
+        nextCandidates = new int[tasks.length];
+        previousFinishTimes = new int[tasks.length];
+        readyTimes = new int[numProcessors];
+        bestStartTimes = null;
+        bestProcessors = null;
+    }
+
+    /**
+     * A depth first search that gives every task a processor in turn. The processors tried for the i-th task and the
+     * next one to try are kept in the buffers of index i, so that the search needs no stack however many tasks there
+     * are.
+     */
+    private void search() {
+        int index = 0;
+        boolean isNewState = true;
+        while (index >= 0) {
+            if (isNewState) {
+                if (states++ >= MAX_STATES) {
+                    return;
+                }
+                if (!expand(index)) {
+                    index--;
+                    isNewState = false;
+                    continue;
+                }
+            } else {
+                // Backtrack the task given a processor last
+                processorFinishTimes[processors[index]] = previousFinishTimes[index];
+            }
+
+            int i = nextCandidates[index];
+            int duration = taskGraph.getDuration(tasks[index]);
+            if (i < numCandidates[index] && candidateStartTimeBuffers[index][i] + duration < bestFinishTime) {
+                nextCandidates[index]++;
+                int processor = candidateProcessors[index][i];
+                previousFinishTimes[index] = processorFinishTimes[processor];
+                processorFinishTimes[processor] = candidateStartTimeBuffers[index][i] + duration;
+                startTimes[index] = candidateStartTimeBuffers[index][i];
+                processors[index] = processor;
+                index++;
+                isNewState = true;
+            } else {
+                remainingDuration += duration;
+                index--;
+                isNewState = false;
+            }
+        }
+    }
+
+    /**
+     * Finds the processors to try for tasks[index], unless every task has a processor or no schedule below this one
+     * can beat the best schedule.
+     * @param index number of tasks given a processor so far.
+     * @return true if the processors of tasks[index] are to be tried.
+     */
+    private boolean expand(int index) {
+        int finishTime = 0;
+        for (int processor = 0; processor < numProcessors; processor++) {
+            finishTime = Math.max(finishTime, processorFinishTimes[processor]);
+        }
+        if (index == tasks.length) {
+            if (finishTime < bestFinishTime) {
+                bestFinishTime = finishTime;
+                bestStartTimes = startTimes.clone();
+                bestProcessors = processors.clone();
+            }
+            return false;
+        }
+        // No processor can finish before the busiest one has finished. The remaining tasks are shared by some number
+        // k of processors, and none can start on a processor before the next task could, so they finish no earlier
+        // than if they were shared evenly by the k processors where the next task could start earliest.
+        int totalFinishTime = 0;
+        for (int processor = 0; processor < numProcessors; processor++) {
+            totalFinishTime += processorFinishTimes[processor];
+            int readyTime = getReadyTime(processor, index);
+            int i = processor;
+            while (i > 0 && readyTimes[i - 1] > readyTime) {
+                readyTimes[i] = readyTimes[i - 1];
+                i--;
+            }
+            readyTimes[i] = readyTime;
+        }
+        int loadBalancedFinishTime = Integer.MAX_VALUE;
+        int totalReadyTime = 0;
+        for (int k = 1; k <= numProcessors; k++) {
+            totalReadyTime += readyTimes[k - 1];
+            loadBalancedFinishTime = Math.min(loadBalancedFinishTime,
+                    (int) Math.ceil((totalReadyTime + remainingDuration) / (double) k));
+        }
+        loadBalancedFinishTime = Math.max(loadBalancedFinishTime,
+                (int) Math.ceil((totalFinishTime + remainingDuration) / (double) numProcessors));
+        if (Math.max(finishTime, loadBalancedFinishTime) >= bestFinishTime) {
+            return false;
+        }
+
+        // The processors where the task starts earliest are tried first, so good schedules are found early
+        int task = tasks[index];
+        int duration = taskGraph.getDuration(task);
+        int[] candidates = candidateProcessors[index];
+        int[] candidateStartTimes = candidateStartTimeBuffers[index];
+        int count = 0;
+        for (int processor = 0; processor < numProcessors; processor++) {
+            if (hasSameEarlierProcessor(processor, index)) {
+                continue;
+            }
+            int startTime = getReadyTime(processor, index);
+            int i = count++;
+            while (i > 0 && candidateStartTimes[i - 1] > startTime) {
+                candidates[i] = candidates[i - 1];
+                candidateStartTimes[i] = candidateStartTimes[i - 1];
+                i--;
+            }
+            candidates[i] = processor;
+            candidateStartTimes[i] = startTime;
+        }
+
+        numCandidates[index] = count;
+        nextCandidates[index] = 0;
+        remainingDuration -= duration;
+        return true;
+    }
+
+    /**
+     * @return the earliest time tasks[index] can start on the processor. The tasks after it are released no earlier.
+     */
+    private int getReadyTime(int processor, int index) {
+        int releaseTime = processor == 0 ? rootDuration : rootDuration + commCosts[index];
+        return Math.max(processorFinishTimes[processor], releaseTime);
+    }
+
+    /**
+     * @return true if an earlier processor is the same as this processor, so giving tasks[index] to either is the
+     * same. A processor that finishes before the task is released is the same as one that finishes when it is
+     * released, as the tasks after it are released no earlier.
+     */
+    private boolean hasSameEarlierProcessor(int processor, int index) {
+        if (processor < firstSymmetricProcessor) {
+            return false;
+        }
+        int readyTime = getReadyTime(processor, index);
+        for (int other = firstSymmetricProcessor; other < processor; other++) {
+            if (getReadyTime(other, index) == readyTime) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the best schedule found, mirrored in time for a join graph.
+     */
+    private Schedule createOutput() {
+        Task[] output = new Task[taskGraph.getNumberOfTasks()];
+        if (rootTask != -1) {
+            output[rootTask] = new Task(0, rootDuration, 0);
+        }
+        for (int i = 0; i < tasks.length; i++) {
+            output[tasks[i]] = new Task(bestStartTimes[i], bestStartTimes[i] + taskGraph.getDuration(tasks[i]),
+                    bestProcessors[i]);
+        }
+
+        if (graphClass == GraphClass.JOIN) {
+            for (int task = 0; task < output.length; task++) {
+                Task forkTask = output[task];
+                output[task] = new Task(bestFinishTime - forkTask.getFinishTime(),
+                        bestFinishTime - forkTask.getStartTime(), forkTask.getProcessor());
+            }
+        }
+        return new Schedule(output, bestFinishTime);
+    }
+}
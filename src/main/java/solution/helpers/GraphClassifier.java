@@ -0,0 +1,94 @@
+package solution.helpers;
+
+import data.TaskGraph;
+
+/**
+ * This class recognises task graphs of a simple shape. Independent tasks, fork and join graphs are scheduled by
+ * ForkScheduler instead of the search over every schedule, and trees and fork-join graphs have a tighter lower bound,
+ * see TreeLowerBound. The most specific shape is reported, so a fork is not reported as an out-tree.
+ */
+public class GraphClassifier {
+
+    /**
+     * The shapes of task graph that are recognised.
+     */
+    public enum GraphClass {
+        INDEPENDENT, // no edges
+        FORK, // one entry task, which is the only parent of every other task, which have no children
+        JOIN, // one exit task, which is the only child of every other task, which have no parents
+        FORK_JOIN, // one entry task and one exit task, with every other task between them and no other edges
+        OUT_TREE, // one entry task, and every other task has exactly one parent
+        IN_TREE, // one exit task, and every other task has exactly one child
+        GENERAL // any other task graph
+    }
+
+    /**
+     * @param taskGraph the task graph.
+     * @return the most specific shape of the task graph.
+     */
+    public static GraphClass classify(TaskGraph taskGraph) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        if (taskGraph.getNumberOfEdges() == 0) {
+            return GraphClass.INDEPENDENT;
+        }
+
+        int entryTasks = 0;
+        int exitTasks = 0;
+        int entryTask = -1;
+        int exitTask = -1;
+        boolean hasSingleParents = true;
+        boolean hasSingleChildren = true;
+        for (int task = 0; task < numTasks; task++) {
+            int numParents = taskGraph.getNumParents(task);
+            int numChildren = taskGraph.getNumChildren(task);
+            if (numParents == 0) {
+                entryTasks++;
+                entryTask = task;
+            }
+            if (numChildren == 0) {
+                exitTasks++;
+                exitTask = task;
+            }
+            hasSingleParents &= numParents <= 1;
+            hasSingleChildren &= numChildren <= 1;
+        }
+
+        if (entryTasks == 1 && taskGraph.getNumChildren(entryTask) == numTasks - 1 && hasSingleParents) {
+            return GraphClass.FORK;
+        }
+        if (exitTasks == 1 && taskGraph.getNumParents(exitTask) == numTasks - 1 && hasSingleChildren) {
+            return GraphClass.JOIN;
+        }
+        if (entryTasks == 1 && exitTasks == 1 && isForkJoin(taskGraph, entryTask, exitTask)) {
+            return GraphClass.FORK_JOIN;
+        }
+        // A graph where every task but one has one parent has n - 1 edges, so it is connected and a tree
+        if (entryTasks == 1 && hasSingleParents) {
+            return GraphClass.OUT_TREE;
+        }
+        if (exitTasks == 1 && hasSingleChildren) {
+            return GraphClass.IN_TREE;
+        }
+        return GraphClass.GENERAL;
+    }
+
+    /**
+     * @return true if every task other than the entry and exit task has the entry task as its only parent and the
+     * exit task as its only child.
+     */
+    private static boolean isForkJoin(TaskGraph taskGraph, int entryTask, int exitTask) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        if (numTasks < 3 || taskGraph.getNumChildren(entryTask) != numTasks - 2
+                || taskGraph.getNumParents(exitTask) != numTasks - 2) {
+            return false;
+        }
+        for (int task = 0; task < numTasks; task++) {
+            if (task != entryTask && task != exitTask
+                    && (taskGraph.getNumParents(task) != 1 || taskGraph.parentAt(task, 0) != entryTask
+                    || taskGraph.getNumChildren(task) != 1 || taskGraph.childAt(task, 0) != exitTask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package solution.helpers;
+
+import data.TaskGraph;
+
+/**
+ * This class makes a smaller task graph for the search, which has exactly the same valid schedules as the original
+ * task graph, so an optimal schedule of one is an optimal schedule of the other. The tasks keep their ids, so a
+ * schedule found on the reduced graph is written out with the original graph.
+ *
+ * An edge u -> v never binds if there is another path from u to v whose tasks between u and v take at least as long as
+ * the communication cost of the edge: whatever processors they are scheduled on, v can not start until that path has
+ * finished, which is never before u has finished and its data has arrived. Removing these edges lets more tasks be
+ * equivalent and more candidate lists have a fixed task order, and makes every data ready time cheaper to find.
+ */
+public class GraphReducer {
+    // Maximum number of edges looked at to find the paths, so large graphs are not reduced for longer than the search
+    private static final long MAX_WORK = 50_000_000L;
+
+    /**
+     * @param taskGraph the task graph to reduce.
+     * @return a task graph without the edges that never bind, or the task graph itself if no edge can be removed.
+     */
+    public static TaskGraph reduce(TaskGraph taskGraph) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        int numEdges = taskGraph.getNumberOfEdges();
+        int[] order = PreProcessor.getTaskLevels(taskGraph).getTopologicalOrder();
+        int[] position = new int[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            position[order[i]] = i;
+        }
+
+        // longest[x] => longest path from the current task u to x, counting the durations after u up to and including
+        // x. It is only valid if reachedFrom[x] == u + 1, so it does not need to be cleared for every task.
+        int[] longest = new int[numTasks];
+        int[] reachedFrom = new int[numTasks];
+        boolean[] removed = new boolean[numEdges]; // indexed like the children of the task graph
+        int numRemoved = 0;
+        long work = 0;
+
+        int edge = 0;
+        for (int u = 0; u < numTasks && work < MAX_WORK; u++) {
+            int numChildren = taskGraph.getNumChildren(u);
+            int last = 0; // position of the last child of u, no path beyond it can reach a child of u
+            for (int i = 0; i < numChildren; i++) {
+                int child = taskGraph.childAt(u, i);
+                longest[child] = taskGraph.getDuration(child);
+                reachedFrom[child] = u + 1;
+                last = Math.max(last, position[child]);
+            }
+            for (int k = position[u] + 1; k < last; k++) {
+                int x = order[k];
+                if (reachedFrom[x] != u + 1) {
+                    continue;
+                }
+                for (int i = 0; i < taskGraph.getNumChildren(x); i++) {
+                    int y = taskGraph.childAt(x, i);
+                    int length = longest[x] + taskGraph.getDuration(y);
+                    if (reachedFrom[y] != u + 1 || length > longest[y]) {
+                        longest[y] = length;
+                        reachedFrom[y] = u + 1;
+                    }
+                }
+                work += taskGraph.getNumChildren(x);
+            }
+
+            for (int i = 0; i < numChildren; i++, edge++) {
+                int child = taskGraph.childAt(u, i);
+                if (longestPathBetween(taskGraph, u, child, longest, reachedFrom) >= taskGraph.childCommCostAt(u, i)) {
+                    removed[edge] = true;
+                    numRemoved++;
+                }
+            }
+        }
+
+        if (numRemoved == 0) {
+            return taskGraph;
+        }
+        return withoutEdges(taskGraph, removed, numRemoved);
+    }
+
+    /**
+     * @return the longest duration of the tasks strictly between u and v on a path from u to v, other than the edge
+     * u -> v itself, or -1 if there is no such path.
+     */
+    private static int longestPathBetween(TaskGraph taskGraph, int u, int v, int[] longest, int[] reachedFrom) {
+        int length = -1;
+        for (int i = 0; i < taskGraph.getNumParents(v); i++) {
+            int parent = taskGraph.parentAt(v, i);
+            if (parent != u && reachedFrom[parent] == u + 1) {
+                length = Math.max(length, longest[parent]);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return a copy of the task graph without the removed edges. The task levels of the task graph are kept: a removed
+     * edge is never longer than the path that replaces it, so no level changes and the topological order stays valid.
+     * Equivalence classes kept in the task graph are kept as well, see Driver.convert.
+     */
+    private static TaskGraph withoutEdges(TaskGraph taskGraph, boolean[] removed, int numRemoved) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        int numEdges = taskGraph.getNumberOfEdges() - numRemoved;
+        String[] taskNames = new String[numTasks];
+        int[] sources = new int[numEdges];
+        int[] targets = new int[numEdges];
+        int[] commCosts = new int[numEdges];
+
+        int edge = 0;
+        int kept = 0;
+        for (int u = 0; u < numTasks; u++) {
+            taskNames[u] = taskGraph.getTaskName(u);
+            for (int i = 0; i < taskGraph.getNumChildren(u); i++, edge++) {
+                if (!removed[edge]) {
+                    sources[kept] = u;
+                    targets[kept] = taskGraph.childAt(u, i);
+                    commCosts[kept] = taskGraph.childCommCostAt(u, i);
+                    kept++;
+                }
+            }
+        }
+
+        TaskGraph reducedGraph = new TaskGraph(taskNames, taskGraph.getDurations(), sources, targets, commCosts);
+        reducedGraph.setTaskLevels(taskGraph.getTaskLevels());
+        reducedGraph.setEquivalenceClasses(taskGraph.getEquivalenceClasses());
+        return reducedGraph;
+    }
+}
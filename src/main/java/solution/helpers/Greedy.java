@@ -3,140 +3,258 @@ package solution.helpers;
 import data.Schedule;
 import data.Task;
 import data.TaskGraph;
+import data.TaskLevels;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Greedy {
+    private static final int NUM_PRIORITY_VARIANTS = 5; // list schedules that are always run, see runVariant
 
-    public Schedule run(TaskGraph taskGraph, int numProcessors){
-        Schedule bestSchedule = runSchedule(taskGraph, numProcessors);
+    private int numThreads = 1; // number of threads the list schedules are run on
+    private long timeLimit = 0; // milliseconds spent on randomized restarts, counted from the start of run
+    private int lowerBound = 0; // no schedule can finish earlier, so nothing is run once the best schedule does
 
-        int[] bLevels = PreProcessor.maxLengthToExitNode(taskGraph);
-        int[] weights = taskGraph.getDurations();
+    /**
+     * @param numThreads number of threads the list schedules are run on. With one thread they are run on the
+     *                   thread that calls run.
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
 
-        Schedule reverseBLevelPriority = runScheduleWithPriority(taskGraph, numProcessors, bLevels, true);
-        if(reverseBLevelPriority.getFinishTime() < bestSchedule.getFinishTime()) {
-            bestSchedule = reverseBLevelPriority;
-        }
+    /**
+     * @param timeLimit milliseconds after the start of run during which list schedules with randomly broken ties are
+     *                  run, once the priority variants are done. 0 only runs the priority variants.
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
 
-        Schedule bLevelPriority = runScheduleWithPriority(taskGraph, numProcessors, bLevels, false);
-        if(bLevelPriority.getFinishTime() < bestSchedule.getFinishTime()){
-            bestSchedule = bLevelPriority;
+    /**
+     * @param lowerBound a lower bound on the finish time of every schedule. No more list schedules are run once one
+     *                   finishes at it.
+     */
+    public void setLowerBound(int lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Runs the list schedule in task order and with four priority orders, then list schedules with randomly broken
+     * ties until the time limit is up, and returns the best of them. The list schedules are shared between the
+     * threads, each taking the next one that has not been started.
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @return the schedule that finishes earliest.
+     */
+    public Schedule run(TaskGraph taskGraph, int numProcessors){
+        long deadline = System.currentTimeMillis() + timeLimit;
+        AtomicInteger nextRun = new AtomicInteger();
+        AtomicReference<Schedule> bestSchedule = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            int run;
+            while ((run = nextRun.getAndIncrement()) < NUM_PRIORITY_VARIANTS
+                    || (System.currentTimeMillis() < deadline && !isLowerBoundMet(bestSchedule.get()))) {
+                Schedule schedule = runVariant(taskGraph, numProcessors, run);
+                bestSchedule.accumulateAndGet(schedule, (best, other) ->
+                        best == null || other.getFinishTime() < best.getFinishTime() ? other : best);
+            }
+        };
+
+        if (numThreads == 1) {
+            worker.run();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                workers.add(pool.submit(worker));
+            }
+            try {
+                for (Future<?> future : workers) {
+                    future.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("A list schedule failed", e);
+            } finally {
+                pool.shutdown();
+            }
         }
+        return bestSchedule.get();
+    }
+
+    /**
+     * @return true if the schedule finishes at the lower bound, false if there is no schedule yet.
+     */
+    private boolean isLowerBoundMet(Schedule schedule) {
+        return schedule != null && schedule.getFinishTime() <= lowerBound;
+    }
+
+    /**
+     * @param run number of the list schedule. The first NUM_PRIORITY_VARIANTS are the task order and the priority
+     *            orders, the rest break the ties of the b-levels, with or without communication costs, at random.
+     * @return the list schedule.
+     */
+    private Schedule runVariant(TaskGraph taskGraph, int numProcessors, int run) {
+        TaskLevels taskLevels = PreProcessor.getTaskLevels(taskGraph);
+        int[] bLevels = taskLevels.getBLevels();
+        int[] weights = taskGraph.getDurations();
 
-        Schedule reverseTaskWeightPriority = runScheduleWithPriority(taskGraph, numProcessors, weights, true);
-        if(reverseTaskWeightPriority.getFinishTime() < bestSchedule.getFinishTime()){
-            bestSchedule = reverseTaskWeightPriority;
+        switch (run) {
+            case 0:
+                return runSchedule(taskGraph, numProcessors);
+            case 1:
+                return runScheduleWithPriority(taskGraph, numProcessors, bLevels, true);
+            case 2:
+                return runScheduleWithPriority(taskGraph, numProcessors, bLevels, false);
+            case 3:
+                return runScheduleWithPriority(taskGraph, numProcessors, weights, true);
+            case 4:
+                return runScheduleWithPriority(taskGraph, numProcessors, weights, false);
+            default:
+                int[] priorities = run % 2 == 0 ? bLevels : taskLevels.getBLevelsWithCommCosts();
+                return runScheduleWithPriority(taskGraph, numProcessors,
+                        randomTieBreakRanks(priorities, new Random(run)), false);
         }
+    }
 
-        Schedule taskWeightPriority = runScheduleWithPriority(taskGraph, numProcessors, weights, false);
-        if(taskWeightPriority.getFinishTime() < bestSchedule.getFinishTime()){
-            bestSchedule = taskWeightPriority;
+    /**
+     * @param priorities priorities[i] => priority of task i, higher first.
+     * @param random the source of the tie breaks.
+     * @return ranks[i] => position of task i in order of priority, with tasks of the same priority in random order.
+     */
+    private int[] randomTieBreakRanks(int[] priorities, Random random) {
+        int n = priorities.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
         }
+        // The sort is stable, so tasks of the same priority keep their random order
+        Arrays.sort(order, Comparator.comparingInt(task -> -priorities[task]));
 
-        return bestSchedule;
+        int[] ranks = new int[n];
+        for (int i = 0; i < n; i++) {
+            ranks[order[i]] = i;
+        }
+        return ranks;
     }
 
     /**
-     * Main method of the algorithm which schedules tasks on parallel processors
-     * n is the number of tasks.
+     * Main method of the algorithm which schedules tasks on parallel processors, in the order they become free.
      * @param taskGraph object that encapsulates tasks and their dependencies.
      * @param numProcessors Number of processors.
      * @return List of scheduled tasks.
      */
     public Schedule runSchedule(TaskGraph taskGraph, int numProcessors) {
-        int n = taskGraph.getNumberOfTasks();
-        int finalFinishTime = 0;
-        Task[] output = new Task[n];
-
-        // scheduleCandidates contains all possible tasks which are able to be scheduled
-        Queue<Integer> scheduleCandidates = new LinkedList<>();
-
-        // earliestScheduleTimes[i][j] => earliest possible time to schedule task i on processor j
-        int[][] earliestScheduleTimes = new int[n][numProcessors];
-
-        // Set up the number of parents (in-degrees) of each task. If a task has no parent, then
-        // we add it to the scheduleCandidates queue.
-        int[] inDegrees = new int[n];
-        for (int i = 0; i < n; i++) {
-            inDegrees[i] = taskGraph.getParentsList(i).size();
-            if (inDegrees[i] == 0) {
-                scheduleCandidates.add(i);
-            }
-        }
-
-        // repeat until all tasks have been scheduled (and a viable solution is found)
-        while (!scheduleCandidates.isEmpty()) {
-            // find a node with in degree 0
-            int candidate = scheduleCandidates.poll();
+        return listSchedule(taskGraph, numProcessors, new ArrayDeque<>());
+    }
 
-            // Choose processor to schedule task on
-            int minStartTime = earliestScheduleTimes[candidate][0];
-            int minProcessor = 0;
-            for (int i = 1; i < numProcessors; i++) {
-                int currStartTime = earliestScheduleTimes[candidate][i];
-                if (currStartTime < minStartTime) {
-                    minStartTime = currStartTime;
-                    minProcessor = i;
-                }
-            }
+    /**
+     * Schedules tasks on parallel processors, always taking the free task with the lowest priority next, or the
+     * highest if reversed.
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @param nodePriorities nodePriorities[i] => priority of task i.
+     * @param reversed true to take the free task with the highest priority first.
+     * @return List of scheduled tasks.
+     */
+    public Schedule runScheduleWithPriority(TaskGraph taskGraph, int numProcessors, int[] nodePriorities, boolean reversed) {
+        int reverse = reversed ? -1 : 1;
+        return listSchedule(taskGraph, numProcessors,
+                new PriorityQueue<>(Comparator.comparingInt(a -> reverse * nodePriorities[a])));
+    }
 
-            // schedule task
-            int finishTime = minStartTime + taskGraph.getDuration(candidate);
-            finalFinishTime = Math.max(finalFinishTime, finishTime);
+    /**
+     * Completes a partial schedule like runScheduleWithPriority, appending the tasks that are not scheduled yet to the
+     * processors.
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @param nodePriorities nodePriorities[i] => priority of task i.
+     * @param reversed true to take the free task with the highest priority first.
+     * @param startTimes startTimes[i] => start time of task i, -1 if it is not scheduled. Filled in for every task.
+     * @param scheduledOn scheduledOn[i] => the processor task i is scheduled on. Filled in for every task.
+     * @param processorFinishTimes finish time of the last task on each processor. Updated to the complete schedule.
+     * @return the finish time of the complete schedule.
+     */
+    public int completeScheduleWithPriority(TaskGraph taskGraph, int numProcessors, int[] nodePriorities,
+                                            boolean reversed, int[] startTimes, int[] scheduledOn,
+                                            int[] processorFinishTimes) {
+        int reverse = reversed ? -1 : 1;
+        return completeSchedule(taskGraph, numProcessors,
+                new PriorityQueue<>(Comparator.comparingInt(a -> reverse * nodePriorities[a])),
+                startTimes, scheduledOn, processorFinishTimes);
+    }
 
-            output[candidate] = new Task(minStartTime, finishTime, minProcessor);
-
-            // Update earliest schedule times for children
-            for (int child: taskGraph.getChildrenList(candidate)) {
-                for (int i = 0; i < numProcessors; i++) {
-                    if (i == minProcessor) {
-                        // for the processor the candidate was applied to,
-                        // the earliest schedule time could be right after the candidate finishes
-                        earliestScheduleTimes[child][minProcessor] = Math.max(finishTime,
-                                earliestScheduleTimes[child][minProcessor]);
-                    } else {
-                        earliestScheduleTimes[child][i] = Math.max(finishTime + taskGraph.getCommCost(candidate, child),
-                                earliestScheduleTimes[child][i]);
-                    }
-                }
+    /**
+     * Schedules every task in the order it is taken from the queue of free tasks, see completeSchedule.
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @param scheduleCandidates an empty queue, which decides the order free tasks are scheduled in.
+     * @return List of scheduled tasks.
+     */
+    private Schedule listSchedule(TaskGraph taskGraph, int numProcessors, Queue<Integer> scheduleCandidates) {
+        int n = taskGraph.getNumberOfTasks();
+        int[] startTimes = new int[n];
+        Arrays.fill(startTimes, -1);
+        int[] scheduledOn = new int[n];
+        int finalFinishTime = completeSchedule(taskGraph, numProcessors, scheduleCandidates, startTimes, scheduledOn,
+                new int[numProcessors]);
 
-                // Decrement in-degree count of child and see if it can be a candidate
-                inDegrees[child]--;
-                if (inDegrees[child] == 0) {
-                    scheduleCandidates.add(child);
-                }
-            }
-            // Update earliest schedule times for the processor which the task was scheduled on (minProcessor)
-            for (int i = 0; i < n; i++) {
-                earliestScheduleTimes[i][minProcessor] = Math.max(finishTime, earliestScheduleTimes[i][minProcessor]);
-            }
+        Task[] output = new Task[n];
+        for (int i = 0; i < n; i++) {
+            output[i] = new Task(startTimes[i], startTimes[i] + taskGraph.getDuration(i), scheduledOn[i]);
         }
-
         return new Schedule(output, finalFinishTime);
     }
 
-    public Schedule runScheduleWithPriority(TaskGraph taskGraph, int numProcessors, int[] nodePriorities, boolean reversed) {
-        int reverse = reversed ? -1 : 1;
-
+    /**
+     * Schedules every task that is not scheduled yet in the order it is taken from the queue of free tasks, on the
+     * processor where it starts earliest, the lowest numbered one if several do. Tasks are only ever appended to a
+     * processor, so a task starts on a processor when both the processor has finished and the data of its parents has
+     * arrived. Both are found when the task is taken from the queue, which costs O((n + e) * P) time and O(n + P)
+     * memory, plus the queue.
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @param scheduleCandidates an empty queue, which decides the order free tasks are scheduled in.
+     * @param startTimes startTimes[i] => start time of task i, -1 if it is not scheduled. Filled in for every task.
+     * @param scheduledOn scheduledOn[i] => the processor task i is scheduled on. Filled in for every task.
+     * @param processorFinishTimes finish time of the last task on each processor. Updated to the complete schedule.
+     * @return the finish time of the complete schedule.
+     */
+    private int completeSchedule(TaskGraph taskGraph, int numProcessors, Queue<Integer> scheduleCandidates,
+                                 int[] startTimes, int[] scheduledOn, int[] processorFinishTimes) {
         int n = taskGraph.getNumberOfTasks();
         int finalFinishTime = 0;
-        Task[] output = new Task[n];
-
-        // scheduleCandidates contains all possible tasks which are able to be scheduled
-        PriorityQueue<Integer> scheduleCandidates = new PriorityQueue<>(Comparator.comparingInt(a -> reverse * nodePriorities[a]));
-
-        // earliestScheduleTimes[i][j] => earliest possible time to schedule task i on processor j
-        int[][] earliestScheduleTimes = new int[n][numProcessors];
+        for (int i = 0; i < numProcessors; i++) {
+            finalFinishTime = Math.max(finalFinishTime, processorFinishTimes[i]);
+        }
 
-        // Set up the number of parents (in-degrees) of each task. If a task has no parent, then
+        // Set up the number of unscheduled parents (in-degrees) of each unscheduled task. If it has none, then
         // we add it to the scheduleCandidates queue.
         int[] inDegrees = new int[n];
         for (int i = 0; i < n; i++) {
-            inDegrees[i] = taskGraph.getParentsList(i).size();
+            if (startTimes[i] != -1) {
+                continue;
+            }
+            for (int j = 0; j < taskGraph.getNumParents(i); j++) {
+                if (startTimes[taskGraph.parentAt(i, j)] == -1) {
+                    inDegrees[i]++;
+                }
+            }
             if (inDegrees[i] == 0) {
                 scheduleCandidates.add(i);
             }
@@ -147,11 +265,33 @@ public class Greedy {
             // find a node with in degree 0
             int candidate = scheduleCandidates.poll();
 
+            // The data of a parent arrives after its communication cost, unless the candidate is on the same
+            // processor, where it arrives no later than the processor finishes. So the candidate waits for the latest
+            // arrival on every processor but one, where it waits for the latest arrival from the other processors.
+            int maxDataArrival = 0;
+            int processorCausingMaxDataArrival = -1;
+            int secondMaxDataArrival = 0;
+            for (int j = 0; j < taskGraph.getNumParents(candidate); j++) {
+                int parent = taskGraph.parentAt(candidate, j);
+                int dataArrival = startTimes[parent] + taskGraph.getDuration(parent)
+                        + taskGraph.parentCommCostAt(candidate, j);
+                if (dataArrival > maxDataArrival) {
+                    if (scheduledOn[parent] != processorCausingMaxDataArrival) {
+                        secondMaxDataArrival = maxDataArrival;
+                        processorCausingMaxDataArrival = scheduledOn[parent];
+                    }
+                    maxDataArrival = dataArrival;
+                } else if (dataArrival > secondMaxDataArrival && scheduledOn[parent] != processorCausingMaxDataArrival) {
+                    secondMaxDataArrival = dataArrival;
+                }
+            }
+
             // Choose processor to schedule task on
-            int minStartTime = earliestScheduleTimes[candidate][0];
+            int minStartTime = Integer.MAX_VALUE;
             int minProcessor = 0;
-            for (int i = 1; i < numProcessors; i++) {
-                int currStartTime = earliestScheduleTimes[candidate][i];
+            for (int i = 0; i < numProcessors; i++) {
+                int dataReadyTime = i == processorCausingMaxDataArrival ? secondMaxDataArrival : maxDataArrival;
+                int currStartTime = Math.max(processorFinishTimes[i], dataReadyTime);
                 if (currStartTime < minStartTime) {
                     minStartTime = currStartTime;
                     minProcessor = i;
@@ -162,34 +302,20 @@ public class Greedy {
             int finishTime = minStartTime + taskGraph.getDuration(candidate);
             finalFinishTime = Math.max(finalFinishTime, finishTime);
 
-            output[candidate] = new Task(minStartTime, finishTime, minProcessor);
-
-            // Update earliest schedule times for children
-            for (int child: taskGraph.getChildrenList(candidate)) {
-                for (int i = 0; i < numProcessors; i++) {
-                    if (i == minProcessor) {
-                        // for the processor the candidate was applied to,
-                        // the earliest schedule time could be right after the candidate finishes
-                        earliestScheduleTimes[child][minProcessor] = Math.max(finishTime,
-                                earliestScheduleTimes[child][minProcessor]);
-                    } else {
-                        earliestScheduleTimes[child][i] = Math.max(finishTime + taskGraph.getCommCost(candidate, child),
-                                earliestScheduleTimes[child][i]);
-                    }
-                }
+            startTimes[candidate] = minStartTime;
+            scheduledOn[candidate] = minProcessor;
+            processorFinishTimes[minProcessor] = finishTime;
 
-                // Decrement in-degree count of child and see if it can be a candidate
+            // Decrement in-degree count of children and see if they can be candidates
+            for (int c = 0; c < taskGraph.getNumChildren(candidate); c++) {
+                int child = taskGraph.childAt(candidate, c);
                 inDegrees[child]--;
                 if (inDegrees[child] == 0) {
                     scheduleCandidates.add(child);
                 }
             }
-            // Update earliest schedule times for the processor which the task was scheduled on (minProcessor)
-            for (int i = 0; i < n; i++) {
-                earliestScheduleTimes[i][minProcessor] = Math.max(finishTime, earliestScheduleTimes[i][minProcessor]);
-            }
         }
 
-        return new Schedule(output, finalFinishTime);
+        return finalFinishTime;
     }
 }
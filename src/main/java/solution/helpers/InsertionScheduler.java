@@ -0,0 +1,154 @@
+package solution.helpers;
+
+import data.Schedule;
+import data.Task;
+import data.TaskGraph;
+import data.TaskLevels;
+
+import java.util.Arrays;
+
+/**
+ * This class schedules tasks like HEFT (Heterogeneous Earliest Finish Time): every task is taken in order of its
+ * b-level with communication costs, which puts every task after its parents, and is given the processor where it
+ * finishes earliest. Unlike Greedy, a task is not only appended to a processor, but can be inserted into the earliest
+ * idle gap that fits it, such as the gaps left while a processor waits for data from another processor.
+ */
+public class InsertionScheduler {
+
+    /**
+     * @param taskGraph object that encapsulates tasks and their dependencies.
+     * @param numProcessors Number of processors.
+     * @return a valid schedule of the task graph.
+     */
+    public Schedule run(TaskGraph taskGraph, int numProcessors) {
+        int n = taskGraph.getNumberOfTasks();
+        int finalFinishTime = 0;
+        Task[] output = new Task[n];
+        int[] finishTimes = new int[n]; // finishTimes[i] => finish time of task i
+        int[] scheduledOn = new int[n]; // scheduledOn[i] => the processor task i is scheduled on
+
+        // The tasks on each processor in order of time, as the start and finish times of each task
+        int[][] processorStartTimes = new int[numProcessors][4];
+        int[][] processorFinishTimes = new int[numProcessors][4];
+        int[] numProcessorTasks = new int[numProcessors];
+        int[] dataReadyTimes = new int[numProcessors]; // dataReadyTimes[j] => data of the task arrives on processor j
+
+        for (int task : getOrder(taskGraph)) {
+            Arrays.fill(dataReadyTimes, 0);
+            for (int j = 0; j < taskGraph.getNumParents(task); j++) {
+                int parent = taskGraph.parentAt(task, j);
+                int dataArrival = finishTimes[parent] + taskGraph.parentCommCostAt(task, j);
+                for (int i = 0; i < numProcessors; i++) {
+                    dataReadyTimes[i] = Math.max(dataReadyTimes[i],
+                            i == scheduledOn[parent] ? finishTimes[parent] : dataArrival);
+                }
+            }
+
+            // Choose processor to schedule task on
+            int duration = taskGraph.getDuration(task);
+            int minStartTime = Integer.MAX_VALUE;
+            int minProcessor = 0;
+            for (int i = 0; i < numProcessors; i++) {
+                int startTime = findEarliestGap(processorStartTimes[i], processorFinishTimes[i],
+                        numProcessorTasks[i], dataReadyTimes[i], duration);
+                if (startTime < minStartTime) {
+                    minStartTime = startTime;
+                    minProcessor = i;
+                }
+            }
+
+            // schedule task
+            int finishTime = minStartTime + duration;
+            finalFinishTime = Math.max(finalFinishTime, finishTime);
+            output[task] = new Task(minStartTime, finishTime, minProcessor);
+            finishTimes[task] = finishTime;
+            scheduledOn[task] = minProcessor;
+            insert(processorStartTimes, processorFinishTimes, numProcessorTasks, minProcessor, minStartTime,
+                    finishTime);
+        }
+
+        return new Schedule(output, finalFinishTime);
+    }
+
+    /**
+     * @return every task in order of non-increasing b-level with communication costs. A task with a zero duration and
+     * zero communication costs can have the same b-level as its child, so ties are kept in topological order.
+     */
+    private int[] getOrder(TaskGraph taskGraph) {
+        int n = taskGraph.getNumberOfTasks();
+        TaskLevels taskLevels = PreProcessor.getTaskLevels(taskGraph);
+        int[] bLevels = taskLevels.getBLevelsWithCommCosts();
+        int[] topologicalOrder = taskLevels.getTopologicalOrder();
+
+        // The sort is stable, so sorting the topological order keeps the ties in topological order
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = topologicalOrder[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(bLevels[b], bLevels[a]));
+
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param startTimes start times of the tasks on the processor, in order.
+     * @param finishTimes finish times of the tasks on the processor, in order.
+     * @param numTasks number of tasks on the processor.
+     * @param dataReadyTime earliest time the task can start on the processor.
+     * @param duration duration of the task.
+     * @return the earliest start time of the task on the processor, in a gap between two tasks or after the last.
+     */
+    private int findEarliestGap(int[] startTimes, int[] finishTimes, int numTasks, int dataReadyTime, int duration) {
+        // Tasks finishing before the data is ready can not be in the way, so skip them with a binary search
+        int low = 0;
+        int high = numTasks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (finishTimes[mid] <= dataReadyTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int startTime = dataReadyTime;
+        for (int i = low; i < numTasks; i++) {
+            if (startTime + duration <= startTimes[i]) {
+                return startTime;
+            }
+            startTime = Math.max(startTime, finishTimes[i]);
+        }
+        return startTime;
+    }
+
+    /**
+     * Adds a task to a processor, keeping the tasks of the processor in order of time.
+     */
+    private void insert(int[][] processorStartTimes, int[][] processorFinishTimes, int[] numProcessorTasks,
+                        int processor, int startTime, int finishTime) {
+        int numTasks = numProcessorTasks[processor];
+        if (numTasks == processorStartTimes[processor].length) {
+            processorStartTimes[processor] = Arrays.copyOf(processorStartTimes[processor], 2 * numTasks);
+            processorFinishTimes[processor] = Arrays.copyOf(processorFinishTimes[processor], 2 * numTasks);
+        }
+        int[] startTimes = processorStartTimes[processor];
+        int[] finishTimes = processorFinishTimes[processor];
+
+        // Tasks are ordered by start time, then by finish time, so tasks with a zero duration keep the finish times
+        // in order as well
+        int i = numTasks;
+        while (i > 0 && (startTimes[i - 1] > startTime
+                || (startTimes[i - 1] == startTime && finishTimes[i - 1] > finishTime))) {
+            startTimes[i] = startTimes[i - 1];
+            finishTimes[i] = finishTimes[i - 1];
+            i--;
+        }
+        startTimes[i] = startTime;
+        finishTimes[i] = finishTime;
+        numProcessorTasks[processor]++;
+    }
+}
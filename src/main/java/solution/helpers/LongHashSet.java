@@ -0,0 +1,168 @@
+package solution.helpers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * The LongHashSet class is a set of primitive longs, using open addressing with linear probing. Unlike a
+ * java.util.HashSet, no object is created for each value, so a value only takes 8 bytes per slot of the table.
+ *
+ * The table can either be a long array on the heap, or a direct ByteBuffer outside of the heap so that it does not
+ * add to the heap size or the work of the garbage collector.
+ *
+ * Once the largest table is three quarters full, the set is saturated: new values are no longer stored, so the probes
+ * stay short and the set never fills up. It is used as a cache of seen values, where a value that is not stored is
+ * only seen again.
+ */
+public class LongHashSet {
+    private static final long EMPTY = 0; // value of an empty slot
+    private static final int MAX_CAPACITY = 1 << 27; // largest table whose size in bytes fits in a direct ByteBuffer
+
+    private final boolean isOffHeap;
+    private long[] heapTable; // used when the table is on the heap
+    private LongBuffer offHeapTable; // used when the table is off the heap
+    private int capacity; // number of slots in the table, always a power of two
+    private int shift; // 64 - log2(capacity), used to turn a value into a slot
+    private int size = 0; // number of values in the table
+    private boolean containsEmpty = false; // EMPTY cannot be stored in the table, so it is kept separately
+
+    /**
+     * @param expectedSize number of values the set should hold before it needs to grow
+     * @param isOffHeap true to keep the table in a direct ByteBuffer instead of on the heap
+     */
+    public LongHashSet(int expectedSize, boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+
+        // Keep the table at most half full
+        int capacity = 16;
+        while (capacity < MAX_CAPACITY && capacity / 2 < expectedSize) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Adds a value to the set, unless the set is saturated.
+     * @param value the value
+     * @return true if the value was not already in the set
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsEmpty;
+            containsEmpty = true;
+            return added;
+        }
+
+        int mask = capacity - 1;
+        int slot = slotOf(value);
+        long current;
+        while ((current = get(slot)) != EMPTY) {
+            if (current == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (isSaturated()) {
+            return true;
+        }
+        set(slot, value);
+        size++;
+        if (size > capacity / 4 * 3 && capacity < MAX_CAPACITY) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * @param value the value
+     * @return true if the value is in the set
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+
+        int mask = capacity - 1;
+        int slot = slotOf(value);
+        long current;
+        while ((current = get(slot)) != EMPTY) {
+            if (current == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the table can not grow and is three quarters full, so new values are not stored.
+     */
+    public boolean isSaturated() {
+        return capacity == MAX_CAPACITY && size >= capacity / 4 * 3;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    public int size() {
+        return containsEmpty ? size + 1 : size;
+    }
+
+    /**
+     * Creates an empty table.
+     */
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        if (isOffHeap) {
+            offHeapTable = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        } else {
+            heapTable = new long[capacity];
+        }
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void resize() {
+        long[] oldHeapTable = heapTable;
+        LongBuffer oldOffHeapTable = offHeapTable;
+        int oldCapacity = capacity;
+        allocate(capacity * 2);
+
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            long value = isOffHeap ? oldOffHeapTable.get(oldSlot) : oldHeapTable[oldSlot];
+            if (value == EMPTY) {
+                continue;
+            }
+
+            int slot = slotOf(value);
+            while (get(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            set(slot, value);
+        }
+    }
+
+    /**
+     * Fibonacci hashing: spreads the value over the table using its highest bits after a multiplication.
+     */
+    private int slotOf(long value) {
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private long get(int slot) {
+        return isOffHeap ? offHeapTable.get(slot) : heapTable[slot];
+    }
+
+    private void set(int slot, long value) {
+        if (isOffHeap) {
+            offHeapTable.put(slot, value);
+        } else {
+            heapTable[slot] = value;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package solution.helpers;
+
+/**
+ * The LossySeenScheduleSet class only stores the hashes of partial schedules. Two different partial schedules with
+ * the same hash are treated as duplicates, see wiki/Hash_Collisions.md.
+ */
+public class LossySeenScheduleSet extends SeenScheduleSet {
+    private final LongHashSet hashes;
+
+    /**
+     * @param expectedSize number of partial schedules the set should hold before it needs to grow
+     * @param isOffHeap true to keep the hashes outside of the heap
+     */
+    public LossySeenScheduleSet(int expectedSize, boolean isOffHeap) {
+        hashes = new LongHashSet(expectedSize, isOffHeap);
+    }
+
+    @Override
+    public boolean add(long hash, int depth, int[] taskStartTimes, int[] scheduledOn) {
+        if (hashes.add(hash)) {
+            misses++;
+            return true;
+        }
+        hits++;
+        return false;
+    }
+}
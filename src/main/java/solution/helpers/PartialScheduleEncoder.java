@@ -0,0 +1,118 @@
+package solution.helpers;
+
+import java.util.Arrays;
+
+/**
+ * The PartialScheduleEncoder class packs a partial schedule into a few longs, so that it can be stored and compared
+ * cheaply by the exact duplicate detection sets.
+ *
+ * Each task is encoded as its start time and the processor it is scheduled on, using just enough bits for the
+ * largest start time and processor. Processors are renamed in the order they are first used by the tasks, so partial
+ * schedules that only differ by a renaming of the processors have the same encoding.
+ */
+public class PartialScheduleEncoder {
+    private final int numTasks;
+    private final int maxStartTime;
+    private final int processorBits; // bits used for the processor of a task
+    private final int taskBits; // bits used for a task
+    private final int wordsPerSchedule; // longs used for the encoding of a partial schedule
+
+    private final long[] encoding; // encoding of the last partial schedule that was encoded
+    private final int[] processorNames; // processorNames[i] => new name of processor i, -1 if it is not used yet
+
+    /**
+     * @param numTasks number of tasks
+     * @param numProcessors number of processors
+     * @param maxStartTime every task in an encoded partial schedule must start before this time
+     */
+    public PartialScheduleEncoder(int numTasks, int numProcessors, int maxStartTime) {
+        this.numTasks = numTasks;
+        this.maxStartTime = maxStartTime;
+
+        // Start times are stored plus one, so that 0 means the task is not scheduled
+        processorBits = bitsNeeded(numProcessors - 1);
+        taskBits = bitsNeeded(maxStartTime) + processorBits;
+        wordsPerSchedule = Math.max(1, (numTasks * taskBits + 63) / 64);
+
+        encoding = new long[wordsPerSchedule];
+        processorNames = new int[numProcessors];
+    }
+
+    /**
+     * Packs a partial schedule into the encoding array.
+     * @param taskStartTimes taskStartTimes[i] => start time of task i, -1 if task i is not scheduled
+     * @param scheduledOn scheduledOn[i] => the processor task i is scheduled on
+     * @return number of tasks in the partial schedule
+     */
+    public int encode(int[] taskStartTimes, int[] scheduledOn) {
+        Arrays.fill(encoding, 0);
+        Arrays.fill(processorNames, -1);
+        int numNamedProcessors = 0;
+        int numScheduled = 0;
+
+        int offset = 0;
+        for (int task = 0; task < numTasks; task++, offset += taskBits) {
+            int startTime = taskStartTimes[task];
+            if (startTime == -1) {
+                continue;
+            }
+            if (startTime >= maxStartTime) {
+                throw new IllegalArgumentException("Start time " + startTime + " is not before " + maxStartTime);
+            }
+            numScheduled++;
+
+            int processor = scheduledOn[task];
+            if (processorNames[processor] == -1) {
+                processorNames[processor] = numNamedProcessors++;
+            }
+
+            long value = ((long) (startTime + 1) << processorBits) | processorNames[processor];
+            int word = offset >>> 6;
+            int shift = offset & 63;
+            encoding[word] |= value << shift;
+            if (shift + taskBits > 64) {
+                // The value does not fit in the rest of this word, so the high bits go into the next word
+                encoding[word + 1] |= value >>> (64 - shift);
+            }
+        }
+        return numScheduled;
+    }
+
+    /**
+     * @param encodings array of encodings
+     * @param slot index of an encoding in the array
+     * @return true if the encoding in the slot is the same as the last encoded partial schedule.
+     */
+    public boolean isEncodedIn(long[] encodings, int slot) {
+        int start = slot * wordsPerSchedule;
+        for (int i = 0; i < wordsPerSchedule; i++) {
+            if (encodings[start + i] != encoding[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the last encoded partial schedule into an array of encodings.
+     * @param encodings array of encodings
+     * @param slot index of the encoding in the array
+     */
+    public void copyTo(long[] encodings, int slot) {
+        System.arraycopy(encoding, 0, encodings, slot * wordsPerSchedule, wordsPerSchedule);
+    }
+
+    /**
+     * @return number of longs used for the encoding of a partial schedule
+     */
+    public int getWordsPerSchedule() {
+        return wordsPerSchedule;
+    }
+
+    /**
+     * @return number of bits needed to store values from 0 to max.
+     */
+    private static int bitsNeeded(int max) {
+        return 32 - Integer.numberOfLeadingZeros(max);
+    }
+}
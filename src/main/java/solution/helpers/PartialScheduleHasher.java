@@ -0,0 +1,84 @@
+package solution.helpers;
+
+import java.util.Random;
+
+/**
+ * The PartialScheduleHasher class keeps a 64-bit hash of a partial schedule up to date as tasks are scheduled and
+ * backtracked, in the style of Zobrist hashing.
+ *
+ * Every (task, start time) pair has a random key, and each processor's hash is the XOR of the keys of the tasks
+ * scheduled on it. As XOR is its own inverse, scheduling and unscheduling a task are the same O(1) operation and
+ * no objects are created. The hash of the partial schedule is the sum of the mixed processor hashes, which does not
+ * depend on the order of the processors, so partial schedules that only differ by a renaming of the processors have
+ * the same hash.
+ *
+ * The hash is added to a set, so we can check whether we have already visited an equivalent state.
+ */
+public class PartialScheduleHasher {
+    private static final long SEED = 306; // fixed so runs are reproducible
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long[] taskKeys; // taskKeys[i] => random key of task i
+    private final long[] processorHashes; // processorHashes[i] => XOR of the keys of tasks scheduled on processor i
+    private long hash; // sum of the mixed processor hashes
+
+    /**
+     * Creates the hash of the empty partial schedule.
+     * @param numTasks number of tasks
+     * @param numProcessors number of processors
+     */
+    public PartialScheduleHasher(int numTasks, int numProcessors) {
+        Random random = new Random(SEED);
+        taskKeys = new long[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            taskKeys[i] = random.nextLong();
+        }
+        processorHashes = new long[numProcessors];
+    }
+
+    private PartialScheduleHasher(long[] taskKeys, long[] processorHashes, long hash) {
+        this.taskKeys = taskKeys;
+        this.processorHashes = processorHashes;
+        this.hash = hash;
+    }
+
+    /**
+     * Schedules a task that is not in the partial schedule, or unschedules a task that is. Backtracking is done by
+     * calling this method again with the same arguments.
+     * @param task the task
+     * @param processor the processor the task is scheduled on
+     * @param startTime the start time of the task
+     */
+    public void toggle(int task, int processor, int startTime) {
+        long processorHash = processorHashes[processor];
+        hash -= mix(processorHash);
+        processorHash ^= mix(taskKeys[task] + startTime * GOLDEN_GAMMA);
+        hash += mix(processorHash);
+        processorHashes[processor] = processorHash;
+    }
+
+    /**
+     * @return hash representing the current partial schedule
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Creates a copy of this hash which can be updated independently. The random keys are shared.
+     * @return the copy
+     */
+    public PartialScheduleHasher getCopy() {
+        return new PartialScheduleHasher(taskKeys, processorHashes.clone(), hash);
+    }
+
+    /**
+     * The finalizer of the SplitMix64 generator. It spreads every bit of the input over the whole output, and maps 0
+     * to 0 so empty processors do not change the hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
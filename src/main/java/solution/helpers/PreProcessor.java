@@ -1,101 +1,192 @@
 package solution.helpers;
 
 import data.TaskGraph;
+import data.TaskLevels;
 
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * This class calculates information needed for pruning and optimization in the Solution classes.
- * It contains methods for calculating B-Levels of nodes and node equivalence.
+ * It contains methods for calculating the levels of nodes and node equivalence.
  */
 public class PreProcessor {
 
 
     /**
-     * This method is called by a client to calculate the B-levels of the nodes in the DAG
+     * This method is called by a client to calculate the B-levels of the nodes in the DAG. They are calculated once
+     * and kept in the task graph.
      *
      * @param taskGraph The task graph contains information about the DAG
      * @return an array of ints where index i is the B-Level of node i.
      */
     public static int[] maxLengthToExitNode(TaskGraph taskGraph){
+        // A copy, so the caller can not change the b-levels kept in the task graph
+        return getTaskLevels(taskGraph).getBLevels().clone();
+    }
+
+    /**
+     * This method is called by a client to get the levels of the nodes in the DAG, see TaskLevels. They are
+     * calculated once and kept in the task graph.
+     *
+     * @param taskGraph The task graph contains information about the DAG
+     * @return the levels of every node, which must not be changed.
+     * @throws IllegalArgumentException if the task graph has a cycle.
+     */
+    public static TaskLevels getTaskLevels(TaskGraph taskGraph){
+        if (taskGraph.getTaskLevels() == null) {
+            taskGraph.setTaskLevels(calculateTaskLevels(taskGraph));
+        }
+        return taskGraph.getTaskLevels();
+    }
+
+    /**
+     * Calculates every level in O(n + e). The t-levels are calculated from the parents of each node in topological
+     * order, and the b-levels from the children of each node in reverse topological order, so nothing is recursive
+     * and deep graphs can not overflow the stack.
+     */
+    private static TaskLevels calculateTaskLevels(TaskGraph taskGraph){
         int numberOfTasks = taskGraph.getNumberOfTasks();
-        int[] lengths = new int[numberOfTasks];
+        int[] order = topologicalOrder(taskGraph);
 
-        //For every node in the graph, call b-levels.
-        for(int node = 0; node < numberOfTasks; node++){
-            bLevels(node, lengths, taskGraph);
+        int[] tLevels = new int[numberOfTasks];
+        int[] asapTimes = new int[numberOfTasks];
+        for (int node : order) {
+            for (int i = 0; i < taskGraph.getNumParents(node); i++) {
+                int parent = taskGraph.parentAt(node, i);
+                int parentFinish = asapTimes[parent] + taskGraph.getDuration(parent);
+                asapTimes[node] = Math.max(asapTimes[node], parentFinish);
+                tLevels[node] = Math.max(tLevels[node],
+                        tLevels[parent] + taskGraph.getDuration(parent) + taskGraph.parentCommCostAt(node, i));
+            }
         }
 
-        return lengths;
-    }
+        int[] bLevels = new int[numberOfTasks];
+        int[] bLevelsWithCommCosts = new int[numberOfTasks];
+        int criticalPathLength = 0;
+        for (int k = numberOfTasks - 1; k >= 0; k--) {
+            int node = order[k];
+            int maxLength = 0;
+            int maxLengthWithCommCosts = 0;
+            for (int i = 0; i < taskGraph.getNumChildren(node); i++) {
+                int child = taskGraph.childAt(node, i);
+                maxLength = Math.max(maxLength, bLevels[child]);
+                maxLengthWithCommCosts = Math.max(maxLengthWithCommCosts,
+                        taskGraph.childCommCostAt(node, i) + bLevelsWithCommCosts[child]);
+            }
+            bLevels[node] = maxLength + taskGraph.getDuration(node);
+            bLevelsWithCommCosts[node] = maxLengthWithCommCosts + taskGraph.getDuration(node);
+            criticalPathLength = Math.max(criticalPathLength, bLevels[node]);
+        }
 
+        int[] alapTimes = new int[numberOfTasks];
+        for (int node = 0; node < numberOfTasks; node++) {
+            alapTimes[node] = criticalPathLength - bLevels[node];
+        }
+
+        return new TaskLevels(order, bLevels, bLevelsWithCommCosts, tLevels, asapTimes, alapTimes);
+    }
 
     /**
-     * This method finds the B-Level of a node.
+     * Orders the nodes so that every node comes after all of its parents, using Kahn's algorithm.
      *
-     * @param node the node that we want to find the B-Level for.
-     * @param lengths the memoization table with the found B-Levels
      * @param taskGraph an object that contains information about the DAG
-     * @return
+     * @return the nodes in topological order.
+     * @throws IllegalArgumentException if the task graph has a cycle.
      */
-    private static int bLevels(int node, int[] lengths, TaskGraph taskGraph){
-        //If the b-level of this node has already been calculated return it.
-        if(lengths[node] != 0){
-            return lengths[node];
+    private static int[] topologicalOrder(TaskGraph taskGraph){
+        int numberOfTasks = taskGraph.getNumberOfTasks();
+        int[] order = new int[numberOfTasks];
+        int[] inDegrees = new int[numberOfTasks];
+        int size = 0;
+        for (int node = 0; node < numberOfTasks; node++) {
+            inDegrees[node] = taskGraph.getNumParents(node);
+            if (inDegrees[node] == 0) {
+                order[size++] = node;
+            }
         }
 
-        //If the node does not have any children, then the B-Level is its duration.
-        List<Integer> childrenList  = taskGraph.getChildrenList(node);
-        if(childrenList.isEmpty()){
-            lengths[node] = taskGraph.getDuration(node);
-            return lengths[node];
+        // order is also the queue: the nodes before head have had their children visited
+        for (int head = 0; head < size; head++) {
+            int node = order[head];
+            for (int i = 0; i < taskGraph.getNumChildren(node); i++) {
+                int child = taskGraph.childAt(node, i);
+                if (--inDegrees[child] == 0) {
+                    order[size++] = child;
+                }
+            }
         }
 
-        //If this node has children, then we must get the B-levels its children and use the max.
-        int maxLength = 0;
-        for(int child : childrenList){
-            maxLength = Math.max(maxLength, bLevels(child, lengths, taskGraph));
+        if (size != numberOfTasks) {
+            throw new IllegalArgumentException("The task graph has a cycle");
         }
-
-        lengths[node] = maxLength + taskGraph.getDuration(node);
-        return lengths[node];
+        return order;
     }
 
     /**
-     * This method, for every node, finds the set of nodes that are equivalent to it.
+     * This method gives every node the id of its equivalence class. Two nodes are equivalent if and only if they have
+     * the same id, which is the smallest node in the class. The ids are calculated once and kept in the task graph.
      *
      * @param taskGraph an object that contains information about the DAG
-     * @return an array of integer arraylists that for index i contains a list of nodes equivalent to node i.
+     * @return an array of ints where index i is the equivalence class of node i.
+     */
+    public static int[] getEquivalenceClasses(TaskGraph taskGraph){
+        if (taskGraph.getEquivalenceClasses() == null) {
+            taskGraph.setEquivalenceClasses(calculateEquivalenceClasses(taskGraph));
+        }
+        return taskGraph.getEquivalenceClasses().clone();
+    }
+
+    /**
+     * Groups the nodes by a hash of their duration, parents and children with the edge costs, so every node is only
+     * compared with the classes whose hash is the same. The classes are kept in an open addressing table of their
+     * smallest node, so the grouping takes near-linear time and creates no objects per node.
      */
-    public static ArrayList<Integer>[] getNodeEquivalence(TaskGraph taskGraph){
-        HashSet<Integer> seen = new HashSet<>();
+    private static int[] calculateEquivalenceClasses(TaskGraph taskGraph){
         int numTasks = taskGraph.getNumberOfTasks();
-        ArrayList<Integer>[] equivalentNodesList = new ArrayList[numTasks];
-
-        for(int i = 0; i<numTasks; i++) {
-            //If we have seen a task before, then we already know the list of nodes it is equivalent to it.
-            if (!seen.contains(i)) {
-                ArrayList<Integer> equivalentNodes = new ArrayList<>();
-                equivalentNodes.add(i);
-                //Go through all the tasks and check for equality
-                for (int j = 0; j < numTasks; j++) {
-                    //If we have seen this node before, then we can be sure that it is not equal.
-                    if (j != i && !seen.contains(j)) {
-                        boolean equivalent = compare(i, j, taskGraph);
-                        if (equivalent) {
-                            equivalentNodes.add(j);
-                        }
-                    }
+        int[] equivalenceClasses = new int[numTasks];
+        int[] hashes = new int[numTasks];
+
+        int capacity = Integer.highestOneBit(Math.max(1, numTasks) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        int[] table = new int[capacity]; // node + 1 of the smallest node of a class, 0 if empty
+        for (int node = 0; node < numTasks; node++) {
+            int hash = signatureHash(node, taskGraph);
+            hashes[node] = hash;
+
+            int slot = hash & mask;
+            while (true) {
+                int representative = table[slot] - 1;
+                if (representative < 0) {
+                    table[slot] = node + 1;
+                    equivalenceClasses[node] = node;
+                    break;
                 }
-                //For the list of equivalent nodes to i, associate their corresponding index in equivalentNodesList with
-                //the equivalent nodes list.
-                for (int j = 0; j < equivalentNodes.size(); j++) {
-                    equivalentNodesList[equivalentNodes.get(j)] = equivalentNodes;
-                    seen.add(equivalentNodes.get(j));
+                if (hashes[representative] == hash && compare(representative, node, taskGraph)) {
+                    equivalenceClasses[node] = representative;
+                    break;
                 }
+                slot = (slot + 1) & mask;
             }
         }
-        return equivalentNodesList;
+        return equivalenceClasses;
+    }
+
+    /**
+     * @return a hash of everything compare checks, so equivalent nodes have the same hash.
+     */
+    private static int signatureHash(int node, TaskGraph taskGraph){
+        int hash = taskGraph.getDuration(node);
+        // The parents and children of a task are sorted by id, so equivalent nodes hash them in the same order
+        for (int i = 0; i < taskGraph.getNumParents(node); i++) {
+            hash = 31 * (31 * hash + taskGraph.parentAt(node, i)) + taskGraph.parentCommCostAt(node, i);
+        }
+        hash = 31 * hash + taskGraph.getNumParents(node);
+        for (int i = 0; i < taskGraph.getNumChildren(node); i++) {
+            hash = 31 * (31 * hash + taskGraph.childAt(node, i)) + taskGraph.childCommCostAt(node, i);
+        }
+        // spread the bits, as the table uses the low bits
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
     }
 
     /**
@@ -111,34 +202,116 @@ public class PreProcessor {
             return false;
         }
 
-        List<Integer> aParents = taskGraph.getParentsList(a);
-        List<Integer> bParents = taskGraph.getParentsList(b);
-        List<Integer> aChildren = taskGraph.getChildrenList(a);;
-        List<Integer> bChildren = taskGraph.getChildrenList(b);
-
         // the two tasks are only equal if they have the same parents and children.
-        if((aParents.size() != bParents.size()) || (aChildren.size() != bChildren.size())){
+        if((taskGraph.getNumParents(a) != taskGraph.getNumParents(b))
+                || (taskGraph.getNumChildren(a) != taskGraph.getNumChildren(b))){
             return false;
         }
-        Collections.sort(aParents);
-        Collections.sort(bParents);
-        for(int i = 0; i<aParents.size(); i++){
-            int aParent = aParents.get(i);
-            int bParent = bParents.get(i);
-            if((aParent != bParent) ||taskGraph.getCommCost(aParent, a) != taskGraph.getCommCost(bParent, b)){
+        // The parents and children of a task are sorted by id, so we can compare them in order
+        for(int i = 0; i<taskGraph.getNumParents(a); i++){
+            if((taskGraph.parentAt(a, i) != taskGraph.parentAt(b, i))
+                    || taskGraph.parentCommCostAt(a, i) != taskGraph.parentCommCostAt(b, i)){
                 return false;
             }
         }
-        Collections.sort(aChildren);
-        Collections.sort(bChildren);
-        for(int i = 0; i<aChildren.size(); i++){
-            int aChild = aChildren.get(i);
-            int bChild= bChildren.get(i);
-            if( (aChild != bChild) || taskGraph.getCommCost(a, aChild) != taskGraph.getCommCost(b, bChild)){
+        for(int i = 0; i<taskGraph.getNumChildren(a); i++){
+            if((taskGraph.childAt(a, i) != taskGraph.childAt(b, i))
+                    || taskGraph.childCommCostAt(a, i) != taskGraph.childCommCostAt(b, i)){
                 return false;
             }
         }
 
         return true;
     }
+
+    /**
+     * This method finds the weakly connected components of the DAG, which only share the processors they are
+     * scheduled on. The components are numbered in the order of their smallest node.
+     *
+     * @param taskGraph an object that contains information about the DAG
+     * @return an array of ints where index i is the component of node i.
+     */
+    public static int[] getComponents(TaskGraph taskGraph){
+        int numTasks = taskGraph.getNumberOfTasks();
+        int[] components = new int[numTasks];
+        Arrays.fill(components, -1);
+        int[] stack = new int[numTasks];
+        int numComponents = 0;
+
+        for (int start = 0; start < numTasks; start++) {
+            if (components[start] != -1) {
+                continue;
+            }
+            // Depth first search along the edges in both directions
+            int size = 0;
+            stack[size++] = start;
+            components[start] = numComponents;
+            while (size > 0) {
+                int node = stack[--size];
+                for (int i = 0; i < taskGraph.getNumParents(node); i++) {
+                    int parent = taskGraph.parentAt(node, i);
+                    if (components[parent] == -1) {
+                        components[parent] = numComponents;
+                        stack[size++] = parent;
+                    }
+                }
+                for (int i = 0; i < taskGraph.getNumChildren(node); i++) {
+                    int child = taskGraph.childAt(node, i);
+                    if (components[child] == -1) {
+                        components[child] = numComponents;
+                        stack[size++] = child;
+                    }
+                }
+            }
+            numComponents++;
+        }
+        return components;
+    }
+
+    /**
+     * This method calculates a lower bound on the finish time of every schedule of the DAG, so a schedule that
+     * finishes at the lower bound is optimal. It is the largest of:
+     * - the critical path, without communication costs;
+     * - the total work shared evenly between the processors;
+     * - the total work and the idle time that no schedule can avoid, shared evenly between the processors that are
+     *   used. Before time t, at most as many processors can have started as there are nodes with an ASAP time before
+     *   t, so the k-th processor to start idles until at least the k-th smallest ASAP time. The same holds for the
+     *   end of the schedule, with the time a node must leave after it finishes, its b-level without its weight;
+     * - for out-trees, in-trees and fork-join graphs, the least finish time with communication costs, see
+     *   TreeLowerBound.
+     *
+     * @param taskGraph an object that contains information about the DAG
+     * @param numProcessors number of processors the DAG is scheduled on.
+     * @return the lower bound, 0 if the DAG has no nodes.
+     */
+    public static int getLowerBound(TaskGraph taskGraph, int numProcessors){
+        int numTasks = taskGraph.getNumberOfTasks();
+        if (numTasks == 0) {
+            return 0;
+        }
+        TaskLevels taskLevels = getTaskLevels(taskGraph);
+        int[] asapTimes = taskLevels.getAsapTimes().clone();
+        int[] tails = new int[numTasks]; // tails[i] => least time between the end of node i and the end of the schedule
+        int totalWork = 0;
+        for (int node = 0; node < numTasks; node++) {
+            tails[node] = taskLevels.getBLevels()[node] - taskGraph.getDuration(node);
+            totalWork += taskGraph.getDuration(node);
+        }
+        Arrays.sort(asapTimes);
+        Arrays.sort(tails);
+
+        // The schedule uses some number of processors, so take the weakest bound over every number it could use
+        int idleBound = Integer.MAX_VALUE;
+        int startIdleTime = 0;
+        int endIdleTime = 0;
+        for (int used = 1; used <= Math.min(numTasks, numProcessors); used++) {
+            startIdleTime += asapTimes[used - 1];
+            endIdleTime += tails[used - 1];
+            idleBound = Math.min(idleBound, (int) Math.ceil((totalWork + startIdleTime + endIdleTime) / (double) used));
+        }
+
+        int loadBalancedBound = (int) Math.ceil(totalWork / (double) numProcessors);
+        int treeBound = TreeLowerBound.getLowerBound(taskGraph, GraphClassifier.classify(taskGraph));
+        return Math.max(Math.max(taskLevels.getCriticalPathLength(), treeBound), Math.max(loadBalancedBound, idleBound));
+    }
 }
@@ -0,0 +1,67 @@
+package solution.helpers;
+
+/**
+ * The SeenScheduleSet class is the set of partial schedules that have already been searched, which is used for
+ * duplicate detection. A partial schedule is given by the start times and processors of its tasks, together with its
+ * 64-bit hash from PartialScheduleHasher. Partial schedules that only differ by a renaming of the processors are
+ * treated as the same partial schedule.
+ */
+public abstract class SeenScheduleSet {
+    protected long hits = 0; // number of partial schedules that were already in the set
+    protected long misses = 0; // number of partial schedules that were added to the set
+    protected long evictions = 0; // number of partial schedules removed from the set to make room for new ones
+
+    /**
+     * Adds a partial schedule to the set.
+     * @param hash hash of the partial schedule
+     * @param depth number of tasks scheduled in the partial schedule, which the search already knows
+     * @param taskStartTimes taskStartTimes[i] => start time of task i, -1 if task i is not scheduled
+     * @param scheduledOn scheduledOn[i] => the processor task i is scheduled on
+     * @return true if the partial schedule was not already in the set
+     */
+    public abstract boolean add(long hash, int depth, int[] taskStartTimes, int[] scheduledOn);
+
+    /**
+     * @return number of partial schedules that were already in the set when they were added
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of partial schedules that were not in the set when they were added
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of partial schedules removed from the set to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Creates an empty set of partial schedules.
+     * @param lossy true to only store hashes. This is faster, but different partial schedules with the same hash are
+     *              treated as duplicates, which can prune optimal schedules.
+     * @param numTasks number of tasks
+     * @param numProcessors number of processors
+     * @param maxStartTime every task in a partial schedule added to the set must start before this time
+     * @param expectedSize number of partial schedules the set should hold before it needs to grow
+     * @param isOffHeap true to keep the hashes of a lossy set outside of the heap
+     * @param memoryBudget maximum number of bytes used by the set, or 0 to let the set grow without bound
+     * @return the set
+     */
+    public static SeenScheduleSet create(boolean lossy, int numTasks, int numProcessors, int maxStartTime,
+                                         int expectedSize, boolean isOffHeap, long memoryBudget) {
+        if (memoryBudget > 0) {
+            return new BoundedSeenScheduleSet(lossy, numTasks, numProcessors, maxStartTime, memoryBudget);
+        }
+        if (lossy) {
+            return new LossySeenScheduleSet(expectedSize, isOffHeap);
+        }
+        return new ExactSeenScheduleSet(numTasks, numProcessors, maxStartTime, expectedSize);
+    }
+}
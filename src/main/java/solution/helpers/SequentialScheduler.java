@@ -34,7 +34,7 @@ public class SequentialScheduler {
         // initialize all the inDegrees of the tasks and put them
         // as a candidate if they have don't have any dependencies.
         for (int task = 0; task < numTasks; task++) {
-            int inDegree = taskGraph.getParentsList(task).size();
+            int inDegree = taskGraph.getNumParents(task);
             if (inDegree == 0) {
                 candidateTasks.add(task);
             }
@@ -51,7 +51,8 @@ public class SequentialScheduler {
 
             // since this task is done, its children would
             // no longer have this dependency
-            for (int child: taskGraph.getChildrenList(task)) {
+            for (int i = 0; i < taskGraph.getNumChildren(task); i++) {
+                int child = taskGraph.childAt(task, i);
                 inDegrees[child]--;
                 if (inDegrees[child] == 0) {
                     candidateTasks.add(child);
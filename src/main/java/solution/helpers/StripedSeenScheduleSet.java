@@ -0,0 +1,69 @@
+package solution.helpers;
+
+import java.util.function.Supplier;
+
+/**
+ * The StripedSeenScheduleSet class is a set of partial schedules that can be used by many threads at once. It is split
+ * into stripes, which are independent sets each guarded by their own lock, and a partial schedule always goes to the
+ * stripe given by its hash. The check and insert of add are done together while holding the lock of one stripe, so
+ * add is an atomic put-if-absent, and threads only wait for each other when they add to the same stripe.
+ */
+public class StripedSeenScheduleSet extends SeenScheduleSet {
+    private final SeenScheduleSet[] stripes;
+    private final int shift; // 64 - log2(number of stripes), used to turn a hash into a stripe, 64 for one stripe
+
+    /**
+     * @param numStripes number of stripes, must be a power of two
+     * @param stripeFactory creates the empty set of each stripe
+     */
+    public StripedSeenScheduleSet(int numStripes, Supplier<SeenScheduleSet> stripeFactory) {
+        stripes = new SeenScheduleSet[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = stripeFactory.get();
+        }
+        shift = 64 - Integer.numberOfTrailingZeros(numStripes);
+    }
+
+    @Override
+    public boolean add(long hash, int depth, int[] taskStartTimes, int[] scheduledOn) {
+        // Uses a different multiplier from the stripes, so that a stripe still spreads its hashes over its whole table.
+        // The shift is split in two, as Java shifts a long by the shift count modulo 64.
+        SeenScheduleSet stripe = stripes[(int) ((hash * 0xC2B2AE3D27D4EB4FL) >>> 1 >>> (shift - 1))];
+        synchronized (stripe) {
+            return stripe.add(hash, depth, taskStartTimes, scheduledOn);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        long hits = 0;
+        for (SeenScheduleSet stripe : stripes) {
+            synchronized (stripe) {
+                hits += stripe.getHits();
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        long misses = 0;
+        for (SeenScheduleSet stripe : stripes) {
+            synchronized (stripe) {
+                misses += stripe.getMisses();
+            }
+        }
+        return misses;
+    }
+
+    @Override
+    public long getEvictions() {
+        long evictions = 0;
+        for (SeenScheduleSet stripe : stripes) {
+            synchronized (stripe) {
+                evictions += stripe.getEvictions();
+            }
+        }
+        return evictions;
+    }
+}
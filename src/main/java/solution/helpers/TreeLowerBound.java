@@ -0,0 +1,166 @@
+package solution.helpers;
+
+import data.TaskGraph;
+import solution.helpers.GraphClassifier.GraphClass;
+
+import java.util.Arrays;
+
+/**
+ * This class calculates a lower bound on the finish time of out-trees, in-trees and fork-join graphs, which takes the
+ * communication costs into account. The critical path of PreProcessor.getLowerBound leaves them out, as every task on
+ * it could run on the same processor, but the tasks on one processor run one after the other, so for these shapes
+ * either the communication costs are paid or the tasks are serialized.
+ *
+ * In an out-tree, a task u is followed by its children. The children on the processor of u run one after the other
+ * once u has finished, and every other child starts no earlier than its communication cost after u has finished. The
+ * least time from the start of u to the end of the schedule is then the duration of u and the best of these over every
+ * set of children kept on the processor of u, with the least times of the children found the same way. The children
+ * on the processor of u are best run in order of the time they need after they finish, and the best set is always the
+ * children that need the longest with their communication cost. An in-tree is the same with its edges and time
+ * reversed. The bound does not depend on the number of processors, as any number of processors could be used.
+ */
+public class TreeLowerBound {
+
+    /**
+     * @param taskGraph the task graph.
+     * @param graphClass the shape of the task graph, see GraphClassifier.
+     * @return the lower bound, or 0 if there is none for the shape.
+     */
+    public static int getLowerBound(TaskGraph taskGraph, GraphClass graphClass) {
+        switch (graphClass) {
+            case FORK:
+            case OUT_TREE:
+                return getTreeLowerBound(taskGraph, true);
+            case JOIN:
+            case IN_TREE:
+                return getTreeLowerBound(taskGraph, false);
+            case FORK_JOIN:
+                return getForkJoinLowerBound(taskGraph);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param isOutTree true to follow the children of every task, false to follow the parents of every task.
+     * @return the least time from the start of the root to the end of the schedule, or from the start of the schedule
+     * to the end of the root for an in-tree.
+     */
+    private static int getTreeLowerBound(TaskGraph taskGraph, boolean isOutTree) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        int[] order = PreProcessor.getTaskLevels(taskGraph).getTopologicalOrder();
+        int[] times = new int[numTasks]; // times[i] => least time from the start of task i to the end of its subtree
+        int root = -1;
+        for (int k = 0; k < numTasks; k++) {
+            // The subtree of a task is finished before the task in reverse topological order for an out-tree
+            int task = isOutTree ? order[numTasks - 1 - k] : order[k];
+            int numNext = isOutTree ? taskGraph.getNumChildren(task) : taskGraph.getNumParents(task);
+            long[] arrivals = new long[numNext]; // (time with the communication cost) << 32 | i, to sort by time
+            long[] tails = new long[numNext]; // (time after the next task finishes) << 32 | i
+            int[] durations = new int[numNext];
+            for (int i = 0; i < numNext; i++) {
+                int next = isOutTree ? taskGraph.childAt(task, i) : taskGraph.parentAt(task, i);
+                int commCost = isOutTree ? taskGraph.childCommCostAt(task, i) : taskGraph.parentCommCostAt(task, i);
+                durations[i] = taskGraph.getDuration(next);
+                arrivals[i] = (long) (commCost + times[next]) << 32 | i;
+                tails[i] = (long) (times[next] - durations[i]) << 32 | i;
+            }
+            times[task] = taskGraph.getDuration(task) + getLeastTime(arrivals, tails, durations);
+            if (isOutTree ? taskGraph.getNumParents(task) == 0 : taskGraph.getNumChildren(task) == 0) {
+                root = task;
+            }
+        }
+        return root == -1 ? 0 : times[root];
+    }
+
+    /**
+     * Keeping the next tasks with the j longest arrivals on the processor only gets slower as j grows, and the longest
+     * arrival of the other tasks only gets shorter, so the best j is found with a binary search.
+     * @param arrivals time from the end of the task to the end of the schedule for each next task on another processor.
+     * @param tails time from the end of each next task to the end of the schedule.
+     * @param durations duration of each next task.
+     * @return the least time from the end of the task to the end of the schedule.
+     */
+    private static int getLeastTime(long[] arrivals, long[] tails, int[] durations) {
+        int numNext = arrivals.length;
+        if (numNext == 0) {
+            return 0;
+        }
+        Arrays.sort(arrivals);
+        Arrays.sort(tails);
+        int[] ranks = new int[numNext]; // ranks[i] => position of next task i in order of longest arrival
+        for (int r = 0; r < numNext; r++) {
+            ranks[(int) arrivals[numNext - 1 - r]] = r;
+        }
+
+        int low = 0;
+        int high = numNext;
+        int leastTime = Integer.MAX_VALUE;
+        while (low <= high) {
+            int j = (low + high) >>> 1;
+            int otherTime = j == numNext ? 0 : (int) (arrivals[numNext - 1 - j] >> 32);
+            int sameTime = getSerializedTime(tails, durations, ranks, j);
+            leastTime = Math.min(leastTime, Math.max(otherTime, sameTime));
+            if (sameTime < otherTime) {
+                low = j + 1;
+            } else {
+                high = j - 1;
+            }
+        }
+        return leastTime;
+    }
+
+    /**
+     * @return the time from the end of the task to the end of the schedule if the next tasks with the j longest
+     * arrivals run on its processor, one after the other in order of the longest tail first.
+     */
+    private static int getSerializedTime(long[] tails, int[] durations, int[] ranks, int j) {
+        int time = 0;
+        int finishTime = 0;
+        for (int k = tails.length - 1; k >= 0; k--) {
+            int i = (int) tails[k];
+            if (ranks[i] < j) {
+                finishTime += durations[i];
+                time = Math.max(time, finishTime + (int) (tails[k] >> 32));
+            }
+        }
+        return time;
+    }
+
+    /**
+     * In a fork-join graph, either the exit task runs on the processor of the entry task, and every other task runs
+     * there one after the other or pays both of its communication costs, or the exit task runs on another processor,
+     * and every other task pays at least one of them.
+     */
+    private static int getForkJoinLowerBound(TaskGraph taskGraph) {
+        int numTasks = taskGraph.getNumberOfTasks();
+        int entryTask = -1;
+        int exitTask = -1;
+        for (int task = 0; task < numTasks; task++) {
+            if (taskGraph.getNumParents(task) == 0) {
+                entryTask = task;
+            }
+            if (taskGraph.getNumChildren(task) == 0) {
+                exitTask = task;
+            }
+        }
+
+        int numOther = numTasks - 2;
+        long[] arrivals = new long[numOther]; // (time on another processor) << 32 | i, to sort by time
+        long[] tails = new long[numOther]; // every tail is 0, as the exit task runs on the same processor
+        int[] durations = new int[numOther];
+        int otherProcessorTime = 0;
+        for (int i = 0; i < numOther; i++) {
+            int task = taskGraph.childAt(entryTask, i);
+            int inCost = taskGraph.childCommCostAt(entryTask, i);
+            int outCost = taskGraph.childCommCostAt(task, 0);
+            durations[i] = taskGraph.getDuration(task);
+            arrivals[i] = (long) (inCost + durations[i] + outCost) << 32 | i;
+            tails[i] = i;
+            otherProcessorTime = Math.max(otherProcessorTime, durations[i] + Math.min(inCost, outCost));
+        }
+        int sameProcessorTime = getLeastTime(arrivals, tails, durations);
+        return taskGraph.getDuration(entryTask) + Math.min(sameProcessorTime, otherProcessorTime)
+                + taskGraph.getDuration(exitTask);
+    }
+}
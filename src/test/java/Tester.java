@@ -194,6 +194,75 @@ public class Tester {
         cleanUp(outputFileName);
     }
 
+    /**
+     * Test a graph with transitive edges. The edge 1 -> 4 never binds and is removed before the search, but the edge
+     * 1 -> 5 costs more than the path through 3 and must be kept.
+     */
+    @Test
+    public void testTransitiveEdges() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "6Nodes7EdgesTransitive.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 2, outputFileName));
+        assertEquals(13, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a graph made of three components. On four processors the components are scheduled on their own and packed
+     * together, which meets the lower bound of the longest component, so the search over the whole graph is skipped.
+     */
+    @Test
+    public void testComponents() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "10Nodes3Components.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 4, outputFileName));
+        assertEquals(18, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a join graph, which is scheduled by mirroring an optimal schedule of the same graph with its edges reversed,
+     * so the search over every schedule is skipped.
+     */
+    @Test
+    public void testJoinGraph() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "8NodesJoin.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 2, outputFileName));
+        assertEquals(23, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testJoinGraphThreeProcessors() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "8NodesJoin.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 3, outputFileName));
+        assertEquals(20, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a fork graph with thousands of tasks, where the search goes one level deeper for every task.
+     */
+    @Test
+    public void testLargeForkGraph() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "2000NodesFork.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 4, outputFileName));
+        cleanUp(outputFileName);
+    }
+
     // ===============================Tests provided by client==================================
 
     /**
@@ -310,7 +379,6 @@ public class Tester {
         cleanUp(outputFileName);
     }
 
-
     // =========================================================================================================
     // ===============================Tests parallelization on the same graphs==================================
     // =========================================================================================================
@@ -610,6 +678,270 @@ public class Tester {
         cleanUp(outputFileName);
     }
 
+    // =========================================================================================================
+    // ===============================Tests A* search on the same graphs========================================
+    // =========================================================================================================
+
+    /**
+     * Test a simple graph on multiple processors with no edges using the A* search.
+     */
+    @Test
+    public void testMultipleProcessorZeroEdgesAStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "5Nodes0Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 4, outputFileName));
+        assertEquals(46, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a sparse graph with fifteen nodes in it using the A* search.
+     */
+    @Test
+    public void testSparseGraphFifteenNodesAStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "15Nodes10Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 3, outputFileName));
+        assertEquals(197, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a dense graph with fifteen nodes in it using the A* search.
+     */
+    @Test
+    public void testDenseGraphFifteenNodesAStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "15Nodes80Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 4, outputFileName));
+        assertEquals(516, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    // ===============================Tests provided by client==================================
+
+    @Test
+    public void testProvidedSeven4AStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_7_OutTree.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 4, outputFileName));
+        assertEquals(22, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedEight2AStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_8_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 2, outputFileName));
+        assertEquals(581, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedNine2AStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_9_SeriesParallel.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 2, outputFileName));
+        assertEquals(55, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedTen4AStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_10_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 4, outputFileName));
+        assertEquals(50, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedEleven2AStar() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_11_OutTree.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityAStar(validator, inputFileName, 2, outputFileName));
+        assertEquals(350, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    // =========================================================================================================
+    // ===============================Tests duplicate detection with a small memory budget======================
+    // =========================================================================================================
+
+    /**
+     * Test a dense graph with fifteen nodes in it, with a duplicate detection table that is too small to hold all
+     * partial schedules.
+     */
+    @Test
+    public void testDenseGraphFifteenNodesBoundedMemory() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "15Nodes80Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityBoundedMemory(validator, inputFileName, 4, outputFileName));
+        assertEquals(516, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedTen4BoundedMemory() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_10_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityBoundedMemory(validator, inputFileName, 4, outputFileName));
+        assertEquals(50, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedEleven2BoundedMemory() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_11_OutTree.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityBoundedMemory(validator, inputFileName, 2, outputFileName));
+        assertEquals(350, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test the parallel search with a duplicate detection budget that is too small to be split between all stripes.
+     */
+    @Test
+    public void testDenseGraphFifteenNodesParallelBoundedMemory() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "15Nodes80Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityParallelBoundedMemory(validator, inputFileName, 2, outputFileName));
+        assertEquals(516, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    // =========================================================================================================
+    // ===============================Tests local search during the search======================================
+    // =========================================================================================================
+
+    /**
+     * Test a graph with ten nodes in it, where the greedy schedule is not optimal, so local search improves the best
+     * schedule while the search runs.
+     */
+    @Test
+    public void testProvidedTen2LocalSearch() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_10_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityLocalSearch(validator, inputFileName, 2, outputFileName));
+        assertEquals(50, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testProvidedEleven4LocalSearch() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_11_OutTree.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityLocalSearch(validator, inputFileName, 4, outputFileName));
+        assertEquals(227, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    // =========================================================================================================
+    // ===============================Tests greedy completion of shallow partial schedules======================
+    // =========================================================================================================
+
+    /**
+     * Test a graph with ten nodes in it, completing every other partial schedule with fewer than four tasks
+     * scheduled greedily during the search.
+     */
+    @Test
+    public void testProvidedTen2Rollout() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_10_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityRollout(validator, inputFileName, 2, outputFileName));
+        assertEquals(50, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    @Test
+    public void testDenseGraphFifteenNodesRollout() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "15Nodes80Edges.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityRollout(validator, inputFileName, 4, outputFileName));
+        assertEquals(516, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    // =========================================================================================================
+    // ===============================Tests reading dot files===================================================
+    // =========================================================================================================
+
+    /**
+     * Test a graph with quoted node ids, graph attributes and extra node attributes, which the native dot parser
+     * reads itself.
+     */
+    @Test
+    public void testQuotedIds() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "5Nodes7EdgesQuotedIds.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 2, outputFileName));
+        assertEquals(154, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a graph with default node attributes, which the native dot parser leaves to GraphStream.
+     */
+    @Test
+    public void testDefaultAttributes() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "5Nodes7EdgesDefaultAttributes.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidity(validator, inputFileName, 2, outputFileName));
+        assertEquals(154, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
+
+    /**
+     * Test a graph that is converted into a task graph file before it is scheduled.
+     */
+    @Test
+    public void testTaskGraphFile() {
+        SolutionValidator validator = new SolutionValidator();
+
+        String inputFileName = graphDir + "Nodes_10_Random.dot";
+        String outputFileName = inputFileName.replace(".dot", "-output.dot");
+        assertTrue(testValidityTaskGraphFile(validator, inputFileName, 4, outputFileName));
+        assertEquals(50, validator.getBestTime());
+        cleanUp(outputFileName);
+    }
 
     // ----------------------------------------UTILITY-----------------------------------------------
 
@@ -639,6 +971,89 @@ public class Tester {
         return validator.validate(inputFileName, outputFileName, numProcessors);
     }
 
+    private boolean testValidityAStar(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    inputFileName + " " + numProcessors + " -a astar" + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
+    private boolean testValidityBoundedMemory(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    inputFileName + " " + numProcessors + " --seen-mem 4k" + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
+    private boolean testValidityParallelBoundedMemory(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    inputFileName + " " + numProcessors + " -p 2 --seen-mem 16k" + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
+    private boolean testValidityLocalSearch(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    inputFileName + " " + numProcessors + " --local-search" + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
+    private boolean testValidityRollout(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    inputFileName + " " + numProcessors + " --rollout-depth 4 --rollout-every 2" + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
+    private boolean testValidityTaskGraphFile(SolutionValidator validator, String inputFileName, int numProcessors, String outputFileName) {
+        String taskGraphFileName = inputFileName.replace(".dot", ".tg");
+        try {
+            Process process = Runtime.getRuntime().exec("java -jar scheduler.jar convert " +
+                    inputFileName + " " + taskGraphFileName);
+            process.waitFor();
+            process = Runtime.getRuntime().exec("java -jar scheduler.jar " +
+                    taskGraphFileName + " " + numProcessors + " -o " + outputFileName);
+            process.waitFor();
+        } catch (Exception e) {
+            System.err.println("Error waiting for scheduler to run programs");
+            e.printStackTrace();
+        }
+        cleanUp(taskGraphFileName);
+
+        return validator.validate(inputFileName, outputFileName, numProcessors);
+    }
+
     private void cleanUp(String outputFileName) {
         new File(outputFileName).delete();
     }